@@ -0,0 +1,185 @@
+package com.lapask;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import net.runelite.api.widgets.Widget;
+
+// Index of the click window (161.92) descendants the old per-frame walk adjusted: MINUS sized widgets carrying the
+// fixed-mode width (248-254) or height (164-172) signature. The tree walk only happens when the index is rebuilt
+// (group load/close, plugin init), so the per-frame pass only has to re-check the indexed widgets instead of walking
+// the whole click window again.
+// The old walk also revalidated every static child each frame. That's dropped: the static children are laid out
+// whenever the click window itself is revalidated, which fixIngameOverlayWidgets() marks whenever it resizes it, and
+// an indexed widget is marked dirty whenever its signature is cleared.
+public class ClickWindowIndex
+{
+	private static final int MAX_DEPTH = 4;
+	private static final int WIDTH_CANDIDATE = 1;
+	private static final int HEIGHT_CANDIDATE = 2;
+
+	private Widget indexedRoot;
+	private boolean dirty = true;
+	private Widget[] nodes = new Widget[32];
+	private int[] flags = new int[32];
+	private int size = 0;
+	// Indexed widgets whose signature the pass already cleared, by candidate flags. They no longer match the
+	// signature, so they're carried over when the index is rebuilt as long as they're still in the click window.
+	private Map<Widget, Integer> adjusted = new IdentityHashMap<>();
+
+	// Nodes the old recursive walk visited per frame vs nodes the indexed pass visits per frame
+	private int walkedNodes = 0;
+	private int visitedNodes = 0;
+
+	public void markDirty()
+	{
+		dirty = true;
+	}
+
+	public void clear()
+	{
+		clearNodes();
+		adjusted.clear();
+		indexedRoot = null;
+		dirty = true;
+	}
+
+	public boolean needsRebuild(Widget clickWindow)
+	{
+		return dirty || clickWindow != indexedRoot;
+	}
+
+	public void rebuild(Widget clickWindow)
+	{
+		clearNodes();
+		walkedNodes = 0;
+		Map<Widget, Integer> previouslyAdjusted = adjusted;
+		adjusted = new IdentityHashMap<>();
+		indexChildren(clickWindow, 0, previouslyAdjusted);
+		indexedRoot = clickWindow;
+		dirty = false;
+	}
+
+	// Re-applies the fixed-mode dimensions to any indexed widget that has drifted back to its resizable values and
+	// marks it dirty in the batch. Returns the number of widgets that were changed.
+	public int apply(boolean fixHeights, RevalidationBatch revalidationBatch)
+	{
+		int changed = 0;
+		visitedNodes = size;
+		for (int i = 0; i < size; i++)
+		{
+			Widget child = nodes[i];
+			boolean modified = false;
+			if ((flags[i] & WIDTH_CANDIDATE) != 0)
+			{
+				int width = child.getOriginalWidth();
+				if (width >= 248 && width <= 254 && child.getWidthMode() == 1)
+				{
+					child.setOriginalWidth(0);
+					modified = true;
+				}
+			}
+			if (fixHeights && (flags[i] & HEIGHT_CANDIDATE) != 0)
+			{
+				int height = child.getOriginalHeight();
+				if (height >= 164 && height <= 172 && child.getHeightMode() == 1)
+				{
+					child.setOriginalHeight(0);
+					modified = true;
+				}
+			}
+			if (modified)
+			{
+				adjusted.put(child, flags[i]);
+				revalidationBatch.markDirty(child);
+				changed++;
+			}
+		}
+		return changed;
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	public int getWalkedNodes()
+	{
+		return walkedNodes;
+	}
+
+	public int getVisitedNodes()
+	{
+		return visitedNodes;
+	}
+
+	private void indexChildren(Widget widget, int depth, Map<Widget, Integer> previouslyAdjusted)
+	{
+		if (depth >= MAX_DEPTH)
+		{
+			return;
+		}
+		indexChildren(widget.getStaticChildren(), depth, previouslyAdjusted);
+		indexChildren(widget.getNestedChildren(), depth, previouslyAdjusted);
+	}
+
+	private void indexChildren(Widget[] children, int depth, Map<Widget, Integer> previouslyAdjusted)
+	{
+		if (children == null)
+		{
+			return;
+		}
+		for (Widget child : children)
+		{
+			if (child == null)
+			{
+				continue;
+			}
+			walkedNodes++;
+			int candidate = previouslyAdjusted.getOrDefault(child, 0);
+			if (candidate != 0)
+			{
+				adjusted.put(child, candidate);
+			}
+			int width = child.getOriginalWidth();
+			if (child.getWidthMode() == 1 && width >= 248 && width <= 254)
+			{
+				candidate |= WIDTH_CANDIDATE;
+			}
+			int height = child.getOriginalHeight();
+			if (child.getHeightMode() == 1 && height >= 164 && height <= 172)
+			{
+				candidate |= HEIGHT_CANDIDATE;
+			}
+			if (candidate != 0)
+			{
+				add(child, candidate);
+			}
+			indexChildren(child, depth + 1, previouslyAdjusted);
+		}
+	}
+
+	private void clearNodes()
+	{
+		for (int i = 0; i < size; i++)
+		{
+			nodes[i] = null;
+		}
+		size = 0;
+	}
+
+	private void add(Widget widget, int candidate)
+	{
+		if (size == nodes.length)
+		{
+			Widget[] grownNodes = new Widget[size * 2];
+			int[] grownFlags = new int[size * 2];
+			System.arraycopy(nodes, 0, grownNodes, 0, size);
+			System.arraycopy(flags, 0, grownFlags, 0, size);
+			nodes = grownNodes;
+			flags = grownFlags;
+		}
+		nodes[size] = widget;
+		flags[size] = candidate;
+		size++;
+	}
+}
@@ -0,0 +1,86 @@
+package com.lapask;
+
+import net.runelite.api.widgets.InterfaceID;
+
+// The static part of the fixed-mode layout in classic-resizable: which widgets move where, and which fixed mode
+// sprites get added. Compiled once when the class loads. Everything that depends on the canvas size or config
+// (viewport, chatbox, run/spec orbs) is computed by LayoutPlan instead.
+public final class FixedModeLayoutSpec
+{
+	// Minimap frame, minimap children and compass
+	public static final LayoutProgram MINIMAP_FRAME = LayoutProgram.builder("minimapFrame")
+		.section("minimapFrame")
+		.require(WidgetHandle.MINIMAP)
+		.require(WidgetHandle.MINIMAP_SPRITE)
+		.require(WidgetHandle.MINIMAP_ORB_HOLDER)
+		.require(WidgetHandle.MINIMAP_CONTAINER)
+		.widget(WidgetHandle.MINIMAP).saveResetLast().size(249, 207)
+		.widget(WidgetHandle.MINIMAP_SPRITE).save().hide()
+		.widget(WidgetHandle.MINIMAP_CONTAINER).save().size(249, 197).set(LayoutProgram.WIDTH_MODE, 0).set(LayoutProgram.HEIGHT_MODE, 0)
+		.widget(WidgetHandle.MINIMAP_ORB_HOLDER).save().size(249, 197)
+		// Right-aligned minimap children are moved to absolute fixed mode coordinates
+		.widget(InterfaceID.RESIZABLE_VIEWPORT, 23).guard(LayoutProgram.X_MODE, 2).saveResetLast().set(LayoutProgram.X_MODE, 0).position(44, 5)
+		.widget(InterfaceID.RESIZABLE_VIEWPORT, 24).guard(LayoutProgram.X_MODE, 2).saveResetLast().set(LayoutProgram.X_MODE, 0).position(44, 45)
+		.widget(InterfaceID.RESIZABLE_VIEWPORT, 25).guard(LayoutProgram.X_MODE, 2).saveResetLast().set(LayoutProgram.X_MODE, 0).position(44, 101)
+		.widget(InterfaceID.RESIZABLE_VIEWPORT, 26).guard(LayoutProgram.X_MODE, 2).saveResetLast().set(LayoutProgram.X_MODE, 0).position(44, 126)
+		.widget(InterfaceID.RESIZABLE_VIEWPORT, 27).guard(LayoutProgram.X_MODE, 2).saveResetLast().set(LayoutProgram.X_MODE, 0).position(44, 141)
+		.widget(InterfaceID.RESIZABLE_VIEWPORT, 28).guard(LayoutProgram.X_MODE, 2).saveResetLast().set(LayoutProgram.X_MODE, 0).position(44, 156)
+		.widget(WidgetHandle.MINIMAP_DRAW_AREA).guard(LayoutProgram.X_MODE, 2).saveResetLast().set(LayoutProgram.X_MODE, 0).position(50, 9)
+		.widget(WidgetHandle.MINIMAP_SPRITE).guard(LayoutProgram.X_MODE, 2).saveResetLast().set(LayoutProgram.X_MODE, 0).position(44, 1)
+		.widget(WidgetHandle.COMPASS_31).save().position(26, 1)
+		.widget(WidgetHandle.COMPASS_29).save().position(28, 3)
+		.build();
+
+	// World map, wiki, store and activity adviser orbs. Guarded on their resizable x so a script re-running doesn't
+	// move an orb that's already been moved.
+	public static final LayoutProgram ORB_FIXUPS = LayoutProgram.builder("orbFixups")
+		.section("orbFixups")
+		.widget(WidgetHandle.WORLDMAP_ORB).guard(LayoutProgram.X, 0).save().position(23, 109)
+		.widget(WidgetHandle.WIKI_BANNER).guard(LayoutProgram.X, 0).save().position(21, 129)
+		.widget(WidgetHandle.STORE_ORB).guard(LayoutProgram.X, 85).save().position(13, 83 - 6).size(34, 34).modes(2, 0, 0, 0)
+		.widget(WidgetHandle.ACTIVITY_ADVISER_ORB).guard(LayoutProgram.X, 55).save().position(13, 50 - 6).size(34, 34).modes(2, 0, 0, 0)
+		.build();
+
+	// Inventory panel bounds, then the fixed mode minimap and inventory frame sprites
+	public static final LayoutProgram INVENTORY_FRAME = LayoutProgram.builder("inventoryFrame")
+		.section("inventoryFrame")
+		.require(WidgetHandle.MINIMAP_SPRITE_CONTAINER)
+		.require(WidgetHandle.INVENTORY_PARENT)
+		.widget(WidgetHandle.INVENTORY_PARENT).saveResetLast().size(249, 336)
+		.widget(WidgetHandle.INV_BACKGROUND).save().position(28, 37).size(190, 261).set(LayoutProgram.SPRITE_ID, 1031)
+		.widget(WidgetHandle.INV_LEFT_COLUMN).save().hide()
+		.widget(WidgetHandle.INV_RIGHT_COLUMN).save().hide()
+		.widget(WidgetHandle.INV_BOTTOM_BAR).save().size(246, 37).set(LayoutProgram.SPRITE_ID, 1032)
+		.widget(WidgetHandle.INV_BOTTOM_TABS).saveResetLast().set(LayoutProgram.X, 2)
+		.widget(WidgetHandle.INV_TOP_BAR).save().set(LayoutProgram.Y, 298).size(249, 38).set(LayoutProgram.SPRITE_ID, 1036)
+		.widget(WidgetHandle.INV_TOP_TABS).saveResetLast().set(LayoutProgram.X, 2)
+		.widget(WidgetHandle.INTERFACE_CONTAINER).save().set(LayoutProgram.X, 26 + 2)
+		// Minimap frame sprites, MINIMAP_SPRITE_CONTAINER is the minimap draw area's parent
+		.sprite(WidgetHandle.MINIMAP_SPRITE_CONTAINER, 1182, 29, 4, 172, 156, 0, 0, 0, 0)  // centerMinimapSprite
+		.sprite(WidgetHandle.MINIMAP_SPRITE_CONTAINER, 1611, 0, 160, 249, 8, 1, 0, 0, 0)   // bottomMinimapSprite
+		.sprite(WidgetHandle.MINIMAP_SPRITE_CONTAINER, 1037, 0, 4, 29, 156, 0, 0, 0, 0)    // leftMinimapSprite
+		.sprite(WidgetHandle.MINIMAP_SPRITE_CONTAINER, 1038, 0, 4, 48, 156, 2, 0, 0, 0)    // rightMinimapSprite
+		.sprite(WidgetHandle.MINIMAP_SPRITE_CONTAINER, 1039, 48, 0, 717, 4, 2, 0, 0, 0)    // topThinBarRight
+		.sprite(WidgetHandle.MINIMAP_SPRITE_CONTAINER, 1441, 0, 0, 48, 4, 2, 0, 0, 0)      // topThinBarLeft
+		// Inventory frame sprites
+		.sprite(WidgetHandle.INVENTORY_PARENT, 1035, 0, 37, 28, 261, 2, 2, 0, 0)   // right inv column
+		.sprite(WidgetHandle.INVENTORY_PARENT, 1033, 0, 38, 31, 133, 0, 0, 0, 0)   // left inv column top half
+		.sprite(WidgetHandle.INVENTORY_PARENT, 1034, 3, 171, 28, 128, 0, 0, 0, 0)  // left inv column bottom half
+		.sprite(WidgetHandle.INVENTORY_PARENT, 1033, 0, 0, 3, 170, 0, 2, 0, 0)     // left tiny strip to the left of bottom half
+		.build();
+
+	// Wide chatbox background sprites, drawn from the sprite overrides SpritePipeline installs. The middle sprite's
+	// width depends on the canvas width and is set from LayoutPlan.getChatMiddleWidth() after the program runs.
+	// Not reverted with LayoutInterpreter.revert(): the parent also holds the vanilla background child.
+	public static final LayoutProgram WIDE_CHATBOX_SPRITES = LayoutProgram.builder("wideChatboxSprites")
+		.section("wideChatboxSprites")
+		.require(WidgetHandle.CHATBOX_TRANSPARENT_BACKGROUND)
+		.sprite(WidgetHandle.CHATBOX_TRANSPARENT_BACKGROUND, -8001, 0, 0, 0, 0, 1, 0, 0, 1)   // middle
+		.sprite(WidgetHandle.CHATBOX_TRANSPARENT_BACKGROUND, -8002, 0, 0, SpritePipeline.CHATBOX_EDGE_WIDTH, 0, 0, 0, 0, 1)   // left edge
+		.sprite(WidgetHandle.CHATBOX_TRANSPARENT_BACKGROUND, -8003, 0, 0, SpritePipeline.CHATBOX_EDGE_WIDTH, 0, 2, 0, 0, 1)   // right edge
+		.build();
+
+	private FixedModeLayoutSpec()
+	{
+	}
+}
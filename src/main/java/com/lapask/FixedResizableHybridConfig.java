@@ -10,6 +10,8 @@ import net.runelite.client.config.ConfigGroup;
 import net.runelite.client.config.ConfigItem;
 import net.runelite.client.config.ConfigSection;
 import net.runelite.client.config.Keybind;
+import net.runelite.client.config.Range;
+import net.runelite.client.config.Units;
 
 @ConfigGroup("fixedresizablehybrid")
 public interface FixedResizableHybridConfig extends Config
@@ -95,6 +97,23 @@ public interface FixedResizableHybridConfig extends Config
 		return 9;
 	}
 
+	@Range(
+		max = 1000
+	)
+	@Units(Units.MILLISECONDS)
+	@ConfigItem(
+		keyName = "resizeSettleDelay",
+		name = "Resize Settle Delay",
+		description = "While the window is being dragged, only the chatbox width is updated.<br>"
+			+ "The full chatbox layout is applied once the window size hasn't changed for this long.",
+		position = 5,
+		section = resizingSettings
+	)
+	default int resizeSettleDelay()
+	{
+		return 150;
+	}
+
 	@ConfigItem(
 		keyName = "orbsPosition",
 		name = "Orb Positioning",
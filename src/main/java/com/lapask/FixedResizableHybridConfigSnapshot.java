@@ -0,0 +1,99 @@
+package com.lapask;
+
+import com.lapask.config.OrbsPosition;
+import com.lapask.config.ResizeBy;
+import java.awt.Color;
+
+// Immutable copy of FixedResizableHybridConfig, rebuilt once per ConfigChanged for the plugin's group.
+// Per-frame and per-script code reads this instead of going through the ConfigManager proxy on every call.
+public final class FixedResizableHybridConfigSnapshot
+{
+	private final boolean aspectRatioResize;
+	private final ResizeBy resizeBy;
+	private final int aspectRatioWidthResize;
+	private final int aspectRatioHeightResize;
+	private final int resizeSettleDelay;
+	private final OrbsPosition orbsPosition;
+	private final boolean useGapBorders;
+	private final Color gapColor;
+	private final Color gapBorderColor;
+	private final boolean wideChatbox;
+	private final boolean chatboxViewportCentering;
+	private final boolean centerChatboxButtons;
+
+	public FixedResizableHybridConfigSnapshot(FixedResizableHybridConfig config)
+	{
+		this.aspectRatioResize = config.aspectRatioResize();
+		this.resizeBy = config.resizeBy();
+		this.aspectRatioWidthResize = config.aspectRatioWidthResize();
+		this.aspectRatioHeightResize = config.aspectRatioHeightResize();
+		this.resizeSettleDelay = config.resizeSettleDelay();
+		this.orbsPosition = config.orbsPosition();
+		this.useGapBorders = config.useGapBorders();
+		this.gapColor = config.gapColor();
+		this.gapBorderColor = config.gapBorderColor();
+		this.wideChatbox = config.isWideChatbox();
+		this.chatboxViewportCentering = config.chatboxViewportCentering();
+		this.centerChatboxButtons = config.centerChatboxButtons();
+	}
+
+	public boolean aspectRatioResize()
+	{
+		return aspectRatioResize;
+	}
+
+	public ResizeBy resizeBy()
+	{
+		return resizeBy;
+	}
+
+	public int aspectRatioWidthResize()
+	{
+		return aspectRatioWidthResize;
+	}
+
+	public int aspectRatioHeightResize()
+	{
+		return aspectRatioHeightResize;
+	}
+
+	public int resizeSettleDelay()
+	{
+		return resizeSettleDelay;
+	}
+
+	public OrbsPosition orbsPosition()
+	{
+		return orbsPosition;
+	}
+
+	public boolean useGapBorders()
+	{
+		return useGapBorders;
+	}
+
+	public Color gapColor()
+	{
+		return gapColor;
+	}
+
+	public Color gapBorderColor()
+	{
+		return gapBorderColor;
+	}
+
+	public boolean isWideChatbox()
+	{
+		return wideChatbox;
+	}
+
+	public boolean chatboxViewportCentering()
+	{
+		return chatboxViewportCentering;
+	}
+
+	public boolean centerChatboxButtons()
+	{
+		return centerChatboxButtons;
+	}
+}
@@ -1,29 +1,51 @@
 package com.lapask;
 
 import java.awt.*;
+import java.awt.image.BufferedImage;
 import javax.inject.Inject;
 import net.runelite.api.Client;
+import net.runelite.api.Point;
 import net.runelite.api.widgets.ComponentID;
 import net.runelite.api.widgets.Widget;
 import net.runelite.client.ui.overlay.Overlay;
 import net.runelite.client.ui.overlay.OverlayLayer;
 import net.runelite.client.ui.overlay.OverlayPosition;
-import net.runelite.client.util.ImageUtil;
 
 public class FixedResizableHybridOverlay extends Overlay
 {
     private static final int OVERLAY_WIDTH = 249;
+    // Offset from the top of the minimap container to the bottom edge of the minimap frame
+    private static final int MINIMAP_BOTTOM_OFFSET = 158;
 
     private final Client client;
-    //private final FixedResizableHybridPlugin plugin;
-    private final FixedResizableHybridConfig config;
-    private static final Image gapBorder = ImageUtil.loadImageResource(FixedResizableHybridPlugin.class, "/border15px.png");
+    private final FixedResizableHybridPlugin plugin;
+
+    // Cached gap geometry, only recomputed when the canvas size changes or the plugin moves the minimap/inventory
+    private boolean geometryValid = false;
+    private int canvasWidth = -1;
+    private int canvasHeight = -1;
+    private int gapX;
+    private int gapY;
+    private int gapHeight;
+    private int minimapBorderX;
+    private int minimapBorderY;
+    private int inventoryBorderX;
+    private int inventoryBorderY;
+    private final Dimension gapSize = new Dimension();
+
+    // gapBorder with config.gapBorderColor() already composited on top, rebuilt after the color changes.
+    // The tint is composited by the plugin's SpritePipeline (or loaded from its WarmStartCache), the plain gapBorder is
+    // drawn until it's ready. A failed tint is requested again after TINT_RETRY_MS.
+    private static final long TINT_RETRY_MS = 1000;
+    private BufferedImage tintedGapBorder;
+    private boolean tintRequested = false;
+    private long nextTintRequestAt = 0;
+
     @Inject
-    public FixedResizableHybridOverlay(Client client, FixedResizableHybridConfig config, FixedResizableHybridPlugin plugin)
+    public FixedResizableHybridOverlay(Client client, FixedResizableHybridPlugin plugin)
     {
       this.client = client;
-      this.config = config;
-      //this.plugin = plugin;
+      this.plugin = plugin;
 
       // Set the overlay position and layer
       setPosition(OverlayPosition.DYNAMIC);
@@ -31,55 +53,97 @@ public class FixedResizableHybridOverlay extends Overlay
       setLayer(OverlayLayer.UNDER_WIDGETS);
     }
 
+    // Called by the plugin whenever it repositions the minimap or inventory
+    public void invalidateGeometry()
+    {
+        geometryValid = false;
+    }
+
+    // Called by the plugin on the client thread when gapBorderColor changes
+    public void invalidateBorderCache()
+    {
+        tintedGapBorder = null;
+        tintRequested = false;
+        nextTintRequestAt = 0;
+    }
+
     @Override
     public Dimension render(Graphics2D graphics)
     {
-        // Get the canvas height dynamically
-        Dimension clientDimensions = client.getRealDimensions();
-        int clientWidth = (int) clientDimensions.getWidth();
-        int clientHeight = (int) clientDimensions.getHeight();
-        Rectangle overlayBounds = new Rectangle(clientWidth - OVERLAY_WIDTH, 0, OVERLAY_WIDTH, clientHeight);
+        if (!geometryValid || canvasWidth != client.getCanvasWidth() || canvasHeight != client.getCanvasHeight())
+        {
+            updateGeometry();
+        }
+        // Nothing to cover when the minimap and inventory are touching (or the widgets aren't loaded)
+        if (!geometryValid || gapHeight <= 0)
+        {
+            return null;
+        }
 
+        final FixedResizableHybridConfigSnapshot config = plugin.getConfigSnapshot();
         graphics.setColor(config.gapColor());
-        graphics.fill(overlayBounds);
+        graphics.fillRect(gapX, gapY, OVERLAY_WIDTH, gapHeight);
         if (config.useGapBorders())
         {
-            final Color borderTint = config.gapBorderColor();
-            final boolean tintHasAlpha = borderTint.getAlpha() > 0;
-            // inventory gap border
-            Widget inventoryParent = client.getWidget(ComponentID.RESIZABLE_VIEWPORT_INVENTORY_PARENT);
-            if (inventoryParent != null)
+            if (tintedGapBorder == null && !tintRequested && System.currentTimeMillis() >= nextTintRequestAt)
             {
-                int imageX = inventoryParent.getCanvasLocation().getX();
-                int imageY = inventoryParent.getCanvasLocation().getY() - 15;
-                graphics.drawImage(gapBorder, imageX, imageY, null);
-                // overlay the tint only where the image pixels are
-                if (tintHasAlpha)
-                {
-                Composite old = graphics.getComposite();
-                graphics.setComposite(AlphaComposite.SrcAtop);
-                graphics.setColor(borderTint);
-                graphics.fillRect(imageX, imageY, gapBorder.getWidth(null), gapBorder.getHeight(null));
-                graphics.setComposite(old);
-                }
+                requestTintedBorder(graphics.getDeviceConfiguration(), config.gapBorderColor());
             }
+            Image border = tintedGapBorder != null ? tintedGapBorder : plugin.getSpritePipeline().getGapBorderImage();
+            // inventory gap border
+            graphics.drawImage(border, inventoryBorderX, inventoryBorderY, null);
             // minimap gap border
-            Widget minimapContainer = client.getWidget(ComponentID.MINIMAP_CONTAINER);
-            if (minimapContainer != null)
+            graphics.drawImage(border, minimapBorderX, minimapBorderY, null);
+        }
+        return gapSize;
+    }
+
+    // Has the tint composited on the background worker. Once it lands it's copied into an image compatible with the
+    // canvas so Java2D can keep it accelerated, every frame after that is a plain drawImage.
+    private void requestTintedBorder(GraphicsConfiguration graphicsConfiguration, Color borderTint)
+    {
+        tintRequested = true;
+        plugin.getSpritePipeline().requestTintedBorder(borderTint,
+            tinted -> tintedGapBorder = toCompatibleImage(graphicsConfiguration, tinted),
+            () ->
             {
-                int imageX = minimapContainer.getCanvasLocation().getX();
-                int imageY = minimapContainer.getCanvasLocation().getY() + 158;
-                graphics.drawImage(gapBorder, imageX, imageY, null);
-                if (tintHasAlpha)
-                {
-                    Composite old = graphics.getComposite();
-                    graphics.setComposite(AlphaComposite.SrcAtop);
-                    graphics.setColor(borderTint);
-                    graphics.fillRect(imageX, imageY, gapBorder.getWidth(null), gapBorder.getHeight(null));
-                    graphics.setComposite(old);
-                }
-            }
+                tintRequested = false;
+                nextTintRequestAt = System.currentTimeMillis() + TINT_RETRY_MS;
+            });
+    }
+
+    private static BufferedImage toCompatibleImage(GraphicsConfiguration graphicsConfiguration, BufferedImage image)
+    {
+        BufferedImage compatible = graphicsConfiguration.createCompatibleImage(image.getWidth(), image.getHeight(), Transparency.TRANSLUCENT);
+        Graphics2D g = compatible.createGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        return compatible;
+    }
+
+    private void updateGeometry()
+    {
+        canvasWidth = client.getCanvasWidth();
+        canvasHeight = client.getCanvasHeight();
+        Widget inventoryParent = client.getWidget(ComponentID.RESIZABLE_VIEWPORT_INVENTORY_PARENT);
+        Widget minimapContainer = client.getWidget(ComponentID.MINIMAP_CONTAINER);
+        if (inventoryParent == null || minimapContainer == null)
+        {
+            geometryValid = false;
+            return;
         }
-    return overlayBounds.getSize();
+
+        Point inventoryLocation = inventoryParent.getCanvasLocation();
+        Point minimapLocation = minimapContainer.getCanvasLocation();
+        inventoryBorderX = inventoryLocation.getX();
+        inventoryBorderY = inventoryLocation.getY() - 15;
+        minimapBorderX = minimapLocation.getX();
+        minimapBorderY = minimapLocation.getY() + MINIMAP_BOTTOM_OFFSET;
+
+        gapX = canvasWidth - OVERLAY_WIDTH;
+        gapY = minimapBorderY;
+        gapHeight = inventoryLocation.getY() - gapY;
+        gapSize.setSize(OVERLAY_WIDTH, Math.max(gapHeight, 0));
+        geometryValid = true;
     }
-}
\ No newline at end of file
+}
@@ -2,9 +2,8 @@ package com.lapask;
 
 import com.google.inject.Inject;
 import com.google.inject.Provides;
-import com.lapask.config.OrbsPosition;
 import com.lapask.config.ResizeBy;
-import java.awt.image.BufferedImage;
+import java.io.File;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
 import net.runelite.api.Constants;
@@ -14,18 +13,20 @@ import net.runelite.api.SpriteID;
 import net.runelite.api.SpritePixels;
 import net.runelite.api.Varbits;
 import net.runelite.api.events.BeforeRender;
+import net.runelite.api.events.GameStateChanged;
 import net.runelite.api.events.GameTick;
 import net.runelite.api.events.ScriptPostFired;
 import net.runelite.api.events.VarbitChanged;
 import net.runelite.api.events.WidgetClosed;
 import net.runelite.api.events.WidgetLoaded;
-import net.runelite.api.widgets.ComponentID;
 import net.runelite.api.widgets.InterfaceID;
 import net.runelite.api.widgets.Widget;
 import net.runelite.api.widgets.WidgetPositionMode;
 import net.runelite.api.widgets.WidgetSizeMode;
+import net.runelite.client.RuneLite;
 import net.runelite.client.callback.ClientThread;
 import net.runelite.client.config.ConfigManager;
+import net.runelite.client.eventbus.EventBus;
 import net.runelite.client.eventbus.Subscribe;
 import net.runelite.client.events.ConfigChanged;
 import net.runelite.client.plugins.Plugin;
@@ -33,8 +34,11 @@ import net.runelite.client.plugins.PluginDescriptor;
 import java.awt.*;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import net.runelite.client.ui.overlay.OverlayManager;
-import net.runelite.client.util.ImageUtil;
 
 
 @Slf4j
@@ -55,28 +59,88 @@ public class FixedResizableHybridPlugin extends Plugin
 	@Inject
 	private ConfigManager configManager;
 
+	// Read by every hot path instead of the config proxy, see onConfigChanged()
+	private volatile FixedResizableHybridConfigSnapshot configSnapshot;
+
 	@Inject
 	private ClientThread clientThread;
 
 	@Inject
 	private OverlayManager overlayManager;
 
+	@Inject
+	private EventBus eventBus;
+
+	// Created in startUp() since they need the injected client
+	private WidgetHandleRegistry widgetHandles;
+	private FrameContext frameContext;
+	private LayoutInterpreter layoutInterpreter;
+
 	@Inject
 	private FixedResizableHybridOverlay enabledOverlays;
 
-	private boolean resizeOnGameTick = false;
 	private boolean widgetsModified = false;
-	private final HashMap<Integer, WidgetState> originalStates = new HashMap<>();
-	private static final int classicResizableGroupId = InterfaceID.RESIZABLE_VIEWPORT;
-	private static final int OLD_SCHOOL_BOX_ID = ComponentID.RESIZABLE_VIEWPORT_RESIZABLE_VIEWPORT_OLD_SCHOOL_BOX;
-	private static final int STAT_GUIDE_ID = 14024705;
+	private final ActiveLayoutSubscriber activeLayoutSubscriber = new ActiveLayoutSubscriber();
+	private boolean activeSubscriberRegistered = false;
+	private int initGeneration = 0;
+	// Generation of the pending initialization poller, 0 when none is pending
+	private int pendingInitGeneration = 0;
+	private int redundantInitializations = 0;
+	private boolean initAttemptQueued = false;
+	private long initRequestedAt = 0;
+	private int readinessProbes = 0;
+	private boolean readinessTimedOut = false;
+	private boolean awaitingFirstFrame = false;
+	private static final long READINESS_TIMEOUT_MS = 5000;
+	private final WidgetStateLedger widgetStateLedger = new WidgetStateLedger();
 	private boolean widgetWithBackgroundLoaded = false;
+	private GameClientLayout gameClientLayout = GameClientLayout.UNKNOWN;
+	private long loggedInAt = 0;
+	// Set when a logout, hop or lost connection reset the layout, so the next login initializes it again
+	private boolean reapplyOnLogin = false;
+	private static final Set<Integer> LAYOUT_ROOT_GROUPS = Set.of(
+		InterfaceID.RESIZABLE_VIEWPORT,
+		InterfaceID.RESIZABLE_VIEWPORT_BOTTOM_LINE,
+		InterfaceID.FIXED_VIEWPORT
+	);
 	private static final Set<String> onConfigChangedTriggerPlugins = Set.of("fixedresizablehybrid", "interfaceStyles", "runelite", "resourcepacks");
-	private final BufferedImage defaultChatboxBufferedImage = ImageUtil.loadImageResource(getClass(), "/chatbox.png");
 	private boolean cutSceneActive = false;
 	private boolean transparentChatbox = false;
-	private int wideChatViewportOffset = 23;
-	private List<Integer> widgetsToFixBeforeRender = new ArrayList<Integer>();
+	private final ClickWindowIndex clickWindowIndex = new ClickWindowIndex();
+	private final RevalidationBatch revalidationBatch = new RevalidationBatch();
+	private final WidgetWriter widgetWriter = new WidgetWriter();
+	private final RepairTaskQueue repairTaskQueue = new RepairTaskQueue();
+	private final LayoutPlanCache layoutPlanCache = new LayoutPlanCache();
+	// Single daemon thread for work that doesn't touch widgets, created in startUp() and shut down in shutDown()
+	private ThreadPoolExecutor backgroundWorker;
+	private static final int BACKGROUND_QUEUE_SIZE = 8;
+	private LayoutPlanner layoutPlanner;
+	private SpritePipeline spritePipeline;
+	private WarmStartCache warmStartCache;
+	private int warmStartSaveTicks = 0;
+	private static final int WARM_START_SAVE_TICKS = 50;
+	// Chatbox sprites currently installed as the -8001..-8003 overrides, kept installed across resets until shutDown()
+	private SpritePipeline.ChatboxSprites installedChatboxSprites = null;
+	private int widgetSpriteCacheResets = 0;
+	private int clientThreadPlanBuilds = 0;
+	// Saved chat button originals, captured the first time the buttons are positioned so the planner can lay them out
+	private int[] chatButtonOriginalX = null;
+	private int[] chatButtonOriginalWidth = null;
+	private int widgetHandleReportTicks = 0;
+	private static final int WIDGET_HANDLE_REPORT_TICKS = 100;
+	private boolean resizePending = false;
+	private boolean provisionalLayoutApplied = false;
+	private int lastCanvasWidth = -1;
+	private int lastCanvasHeight = -1;
+	private long resizeStartedAt = 0;
+	private long lastResizeSignalAt = 0;
+	private int resizeSignals = 0;
+	private int provisionalRelayouts = 0;
+	private long resizeNanos = 0;
+	private final Set<String> pendingConfigChanges = new LinkedHashSet<>();
+	private int pendingConfigEvents = 0;
+	private boolean configDrainQueued = false;
+	private int configDrainCount = 0;
 	private static final Set<Integer> WIDGETS_WITH_BACKGROUNDS = Set.of(
 		InterfaceID.FAIRY_RING, // Fairy ring
 		416,  // Canoe interface (choose canoe)
@@ -84,6 +148,16 @@ public class FixedResizableHybridPlugin extends Plugin
 		224   // Boat travelling (e.g., to Neitiznot)
 	);
 
+	FixedResizableHybridConfigSnapshot getConfigSnapshot()
+	{
+		return configSnapshot;
+	}
+
+	SpritePipeline getSpritePipeline()
+	{
+		return spritePipeline;
+	}
+
 	@Provides
 	FixedResizableHybridConfig provideConfig(ConfigManager configManager)
 	{
@@ -95,10 +169,37 @@ public class FixedResizableHybridPlugin extends Plugin
 	protected void startUp() throws Exception
 	{
 		log.info("Fixed Hybrid Plugin started!");
-		if (client.getGameState() == GameState.LOGGED_IN)
+		configSnapshot = new FixedResizableHybridConfigSnapshot(config);
+		widgetHandles = new WidgetHandleRegistry(client);
+		frameContext = new FrameContext(client, widgetHandles);
+		layoutInterpreter = new LayoutInterpreter(client, widgetHandles, widgetStateLedger, revalidationBatch);
+		backgroundWorker = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<>(BACKGROUND_QUEUE_SIZE), runnable ->
+		{
+			Thread thread = new Thread(runnable, "fixed-resizable-hybrid-worker");
+			thread.setDaemon(true);
+			return thread;
+		});
+		layoutPlanner = new LayoutPlanner(backgroundWorker, clientThread);
+		warmStartCache = new WarmStartCache(new File(RuneLite.RUNELITE_DIR, "fixed-resizable-hybrid"));
+		spritePipeline = new SpritePipeline(backgroundWorker, clientThread, client, warmStartCache);
+		WarmStartCache startupCache = warmStartCache;
+		backgroundWorker.execute(() ->
+		{
+			WarmStartCache.Contents contents = startupCache.load();
+			if (contents != null)
+			{
+				clientThread.invokeLater(() -> startupCache.install(contents));
+			}
+		});
+		// The initialization state is only touched on the client thread
+		clientThread.invoke(() ->
 		{
-			queuePluginInitialization();
-		}
+			if (client.getGameState() == GameState.LOGGED_IN)
+			{
+				queuePluginInitialization();
+			}
+		});
 	}
 
 	@Override
@@ -106,43 +207,151 @@ public class FixedResizableHybridPlugin extends Plugin
 	{
 		log.info("Fixed Resizable Hybrid Plugin stopped!");
 		resetWidgets();
+		ThreadPoolExecutor worker = backgroundWorker;
+		clientThread.invoke(() ->
+		{
+			removeChatboxSpriteOverrides();
+			saveWarmStartCache();
+			// Queued work still runs (including the save), plans that land afterwards fail the planner's generation check
+			worker.shutdown();
+		});
+	}
+
+	// Subscribers that only have work to do while the classic-resizable layout is applied. They're registered with the
+	// EventBus when the layout is applied and unregistered when it's reset (see setActiveSubscriberRegistered()), so
+	// fixed mode, modern resizable and the login screen don't pay for a dispatch on every frame and client script.
+	// The plugin's own subscribers stay registered and only watch for layout changes and readiness.
+	public class ActiveLayoutSubscriber
+	{
+		@Subscribe
+		public void onBeforeRender(final BeforeRender event)
+		{
+			handleBeforeRender();
+		}
+
+		@Subscribe
+		public void onScriptPostFired(ScriptPostFired event)
+		{
+			revalidationBatch.begin();
+			try
+			{
+				handleScriptPostFired(event.getScriptId());
+			}
+			finally
+			{
+				endRevalidationPass("script", event.getScriptId());
+			}
+		}
+
+		@Subscribe
+		public void onVarbitChanged(VarbitChanged event)
+		{
+			handleVarbitChanged(event.getVarbitId(), event.getValue());
+		}
+
+		@Subscribe
+		public void onWidgetLoaded(WidgetLoaded event)
+		{
+			int groupID = event.getGroupId();
+			// Any interface can be nested into the click window (minigame overlays), so the index is rebuilt on the next frame
+			clickWindowIndex.markDirty();
+			frameContext.invalidate();
+			if (WIDGETS_WITH_BACKGROUNDS.contains(groupID))
+			{
+				widgetWithBackgroundLoaded = true;
+				scheduleWidgetBackgroundFix(groupID);
+			}
+		}
+
+		@Subscribe
+		public void onWidgetClosed(WidgetClosed event)
+		{
+			int groupID = event.getGroupId();
+			clickWindowIndex.markDirty();
+			frameContext.invalidate();
+			if (WIDGETS_WITH_BACKGROUNDS.contains(groupID) && event.isUnload())
+			{
+				//log.debug("onWidgetClosed(): fairy ring closed");
+				widgetWithBackgroundLoaded = false;
+			}
+		}
+	}
+
+	private void setActiveSubscriberRegistered(boolean registered)
+	{
+		if (registered == activeSubscriberRegistered)
+		{
+			return;
+		}
+		activeSubscriberRegistered = registered;
+		if (registered)
+		{
+			// Events that fired while unregistered were missed, so the state they track is read back first
+			syncActiveState();
+			eventBus.register(activeLayoutSubscriber);
+		}
+		else
+		{
+			eventBus.unregister(activeLayoutSubscriber);
+		}
+		log.debug("Active layout subscribers {}", registered ? "registered" : "unregistered");
+	}
+
+	private void syncActiveState()
+	{
+		cutSceneActive = client.getVarbitValue(542) == 1;
+		frameContext.setCutSceneActive(cutSceneActive);
+		frameContext.invalidate();
+		transparentChatboxChanged(client.getVarbitValue(Varbits.TRANSPARENT_CHATBOX));
+		widgetWithBackgroundLoaded = false;
+		for (int groupId : WIDGETS_WITH_BACKGROUNDS)
+		{
+			if (client.getWidget(groupId, 0) != null)
+			{
+				widgetWithBackgroundLoaded = true;
+				scheduleWidgetBackgroundFix(groupId);
+			}
+		}
 	}
 
 	//Tried to avoid using onBeforeRender as much as possible, but there are some minigame widgets that get adjusted seemingly without a script
 	//attached, so I used this to modify those widgets prior to render
-	@Subscribe
-	public void onBeforeRender(final BeforeRender event)
+	private void handleBeforeRender()
 	{
 		if (!widgetsModified)
 		{
 			return;
 		}
+		frameContext.invalidate();
+		if (awaitingFirstFrame)
+		{
+			awaitingFirstFrame = false;
+			long now = System.currentTimeMillis();
+			log.debug("First modified frame {} ms after the initialization request ({} ms since login)",
+				now - initRequestedAt, loggedInAt > 0 ? now - loggedInAt : -1);
+		}
+		int previousFrameWrites = widgetWriter.startFrame();
+		if (previousFrameWrites > 0)
+		{
+			log.trace("{} widget writes applied during the previous frame", previousFrameWrites);
+		}
+		processPendingResize();
 		//Needs to occur every frame to ensure interface dimensions are set
 		fixIngameOverlayWidgets();
 
-		//widgetsToFixBeforeRender contains the list of ids need to be processed (see specific UI groups in onWidget(Un)load)
+		//Runs the repairs scripts and widget loads marked since the last frame (see handleScriptPostFired() and onWidgetLoaded())
 		//prevents widget/UI flickers when widgets are loaded and resized/centered to the viewport
-		//clears list after so it's run as little as possible
-		if (!widgetsToFixBeforeRender.isEmpty())
+		//each repair runs at most once per frame no matter how often it was marked
+		runPendingRepairTasks();
+	}
+
+	// Loading an interface with a background refits the background before the next render.
+	// 224 (boat travelling) is only refit when the chatbox changes, as before.
+	private void scheduleWidgetBackgroundFix(int groupId)
+	{
+		if (groupId != 224)
 		{
-			log.debug("widgetsToFixBeforeRender being processed");
-			for (Integer identifier : widgetsToFixBeforeRender)
-			{
-				switch (identifier)
-				{
-					case STAT_GUIDE_ID:
-						fixStatsGuide();
-						break;
-					case InterfaceID.FAIRY_RING:
-					case 416:
-					case 647:
-						fixWidgetBackground();
-						break;
-					default:
-						break;
-				}
-			}
-			widgetsToFixBeforeRender.clear();
+			scheduleRepair(RepairTask.WIDGET_BACKGROUND);
 		}
 	}
 
@@ -163,111 +372,363 @@ public class FixedResizableHybridPlugin extends Plugin
 		}
 		if ("fixedresizablehybrid".equals(group))
 		{
-			clientThread.invoke(() ->
+			configSnapshot = new FixedResizableHybridConfigSnapshot(config);
+		}
+
+		// Resource pack switches and profile syncs change many keys at once, so changes are collected and drained
+		// once on the client thread instead of tearing down and rebuilding the layout for every key.
+		synchronized (pendingConfigChanges)
+		{
+			pendingConfigChanges.add(group + "." + key);
+			pendingConfigEvents++;
+			if (!configDrainQueued)
 			{
-				if ("aspectRatioResize".equals(key) && config.aspectRatioResize())
-				{
-					resizeByAspectRatio();
-				}
-				else if ("chatboxViewportCentering".equals(key) && transparentChatbox)
-				{
-					configManager.setConfiguration("fixedresizablehybrid", "chatboxViewportCentering", false);
-				}
-				else
-				{
-					resetWidgets();
-					queuePluginInitialization();
-				}
-			});
+				configDrainQueued = true;
+				clientThread.invokeLater(this::drainConfigChanges);
+			}
 		}
-		else
+	}
+
+	// Applies every config change collected since the last drain with at most one reset/initialization.
+	private void drainConfigChanges()
+	{
+		List<String> changedKeys;
+		int foldedEvents;
+		synchronized (pendingConfigChanges)
+		{
+			changedKeys = new ArrayList<>(pendingConfigChanges);
+			foldedEvents = pendingConfigEvents;
+			pendingConfigChanges.clear();
+			pendingConfigEvents = 0;
+			configDrainQueued = false;
+		}
+
+		boolean resize = false;
+		boolean disableViewportCentering = false;
+		EnumSet<LayoutFeature> features = EnumSet.noneOf(LayoutFeature.class);
+		for (String changedKey : changedKeys)
 		{
-			clientThread.invoke(() ->
+			if (!changedKey.startsWith("fixedresizablehybrid."))
 			{
-				resetWidgets();
-				queuePluginInitialization();
-			});
+				// Interface styles and resource packs change the sprites the frames and the wide chatbox use
+				features.addAll(LayoutFeature.forSpriteChange());
+				continue;
+			}
+			String key = changedKey.substring("fixedresizablehybrid.".length());
+			switch (key)
+			{
+				case "aspectRatioResize":
+				case "resizeBy":
+				case "aspectRatioWidthResize":
+				case "aspectRatioHeightResize":
+					resize |= configSnapshot.aspectRatioResize();
+					break;
+				case "gapBorderColor":
+					// The overlay has the new tint composited on the background worker on its next frame
+					enabledOverlays.invalidateBorderCache();
+					features.addAll(LayoutFeature.forConfigKey(key));
+					break;
+				case "chatboxViewportCentering":
+					if (transparentChatbox)
+					{
+						disableViewportCentering = true;
+						break;
+					}
+					features.addAll(LayoutFeature.forConfigKey(key));
+					break;
+				default:
+					features.addAll(LayoutFeature.forConfigKey(key));
+					break;
+			}
+		}
+
+		configDrainCount++;
+		log.debug("Config drain #{}: folded {} events ({} distinct keys) into one pass, features {}",
+			configDrainCount, foldedEvents, changedKeys.size(), features);
+
+		if (disableViewportCentering)
+		{
+			configManager.setConfiguration("fixedresizablehybrid", "chatboxViewportCentering", false);
+		}
+		if (!features.isEmpty() && !widgetsModified && getGameClientLayout() == GameClientLayout.CLASSIC_RESIZABLE)
+		{
+			// initializePlugin() also resizes by aspect ratio, so a pending resize is covered here
+			resetWidgets();
+			queuePluginInitialization();
+			return;
+		}
+		applyFeatures(features);
+		if (resize)
+		{
+			resizeByAspectRatio();
+		}
+	}
+
+	// Reverts the given features that own saved state or created widgets, then re-applies them on top of the rest of
+	// the layout, which stays applied. All of it happens in one revalidation pass, so nothing else reflows.
+	private void applyFeatures(EnumSet<LayoutFeature> features)
+	{
+		if (!widgetsModified || getGameClientLayout() != GameClientLayout.CLASSIC_RESIZABLE)
+		{
+			return;
+		}
+		revalidationBatch.begin();
+		try
+		{
+			revertFeatureUnits(features);
+			applyFeatureUnits(features);
+		}
+		finally
+		{
+			endRevalidationPass("config change", -1);
+		}
+	}
+
+	// Restores the ledger records owned by the revertible features and deletes the sprites they created
+	private void revertFeatureUnits(EnumSet<LayoutFeature> features)
+	{
+		int owners = LayoutFeature.revertibleOwners(features);
+		if (owners == 0)
+		{
+			return;
+		}
+		if (features.contains(LayoutFeature.INVENTORY_FRAME))
+		{
+			// Also holds the minimap frame sprites, see FixedModeLayoutSpec.INVENTORY_FRAME
+			layoutInterpreter.revert(FixedModeLayoutSpec.INVENTORY_FRAME);
 		}
+		int fieldWrites = widgetStateLedger.restore(client, owners);
+		if (features.contains(LayoutFeature.WIDE_CHAT))
+		{
+			// The chat button layouts were derived from the originals that were just restored
+			layoutPlanCache.clear();
+			chatButtonOriginalX = null;
+			chatButtonOriginalWidth = null;
+		}
+		widgetHandles.invalidateAll();
+		log.debug("Reverted features {} ({} fields written, {} widgets still saved)", features, fieldWrites,
+			widgetStateLedger.size());
+	}
+
+	private void applyFeatureUnits(EnumSet<LayoutFeature> features)
+	{
+		if (features.contains(LayoutFeature.MINIMAP_FRAME))
+		{
+			repositionMinimapWidgets();
+		}
+		if (features.contains(LayoutFeature.INVENTORY_FRAME))
+		{
+			createMinimapInvSprites();
+		}
+		if (features.contains(LayoutFeature.ORBS))
+		{
+			positionMinimapOrbs();
+		}
+		if (features.contains(LayoutFeature.WIDE_CHAT) && configSnapshot.isWideChatbox())
+		{
+			widenChat();
+			setupWideChatboxWidget();
+		}
+		if (features.contains(LayoutFeature.RENDER_VIEWPORT))
+		{
+			if (!configSnapshot.isWideChatbox())
+			{
+				restoreViewportHeight();
+			}
+			chatboxChanged();
+			fixInterfaceDimensions();
+		}
+		if (features.contains(LayoutFeature.CHAT_BUTTONS) && configSnapshot.isWideChatbox())
+		{
+			positionChatboxButtons();
+		}
+		// GAP_OVERLAY only needs the new config snapshot and border tint, which onConfigChanged()/drainConfigChanges() already handled
 	}
 
+	// Only script 901 (Game Interface Mode changes) is watched while the layout isn't applied, the other scripts are
+	// handled by ActiveLayoutSubscriber
 	@Subscribe
 	public void onScriptPostFired(ScriptPostFired event)
 	{
-		int scriptId = event.getScriptId();
+		if (event.getScriptId() != 901)
+		{
+			return;
+		}
+		revalidationBatch.begin();
+		try
+		{
+			//log.debug("script 901: gameClientLayoutChanged()");
+			gameClientLayoutChanged();
+		}
+		finally
+		{
+			endRevalidationPass("script", 901);
+		}
+	}
+
+	// Marks the repairs a script needs, they run once per frame in runPendingRepairTasks()
+	private void handleScriptPostFired(int scriptId)
+	{
 		switch (scriptId)
 		{
 			case 909: // Interface boxes recalculated (e.g., bank inventory, settings panel, etc)
-				//log.debug("script 909: fixInterfaceDimensions()");
-				fixInterfaceDimensions();
+				scheduleRepair(RepairTask.INTERFACE_DIMENSIONS);
 				break;
 			case 654: // Stats guide widget opened (osb>214.0>214.1)
-				widgetsToFixBeforeRender.add(STAT_GUIDE_ID);
+				scheduleRepair(RepairTask.STAT_GUIDE);
 				break;
 			case 904: // Window resized
-				if (widgetsModified && config.isWideChatbox() && getGameClientLayout() == 2)
-				{
-					//log.debug("script 904: widenChat() for window resize");
-					chatboxChanged();
-					widenChat();
-				}
-				break;
+				// Fires repeatedly while the window is dragged, the relayout happens in processPendingResize()
+				onResizeSignal();
+				return;
 			case 1699: // Right-aligned minimap orbs repositioned
 			case 3305:
-				//log.debug("script 1699/3305: fixWorldMapWikiStoreActAdvOrbs()");
-				fixWorldMapWikiStoreActAdvOrbs();
-				fixInterfaceDimensions();
-				repositionMinimapWidgets();
+				scheduleRepair(RepairTask.ORBS);
+				scheduleRepair(RepairTask.INTERFACE_DIMENSIONS);
+				scheduleRepair(RepairTask.MINIMAP_WIDGETS);
 				break;
 			case 902: // Inventory background changed, revert it back to its old sprite and unhide inv if in cutscene
 				// Also fail-safe for loading sprites
-				//log.debug("script 902: fixInvBackground(), checkMinimapSprites(), unhide invWidget during cutscene");
-				checkMinimapSprites();
-				fixInvBackground();
+				scheduleRepair(RepairTask.MINIMAP_SPRITES);
+				scheduleRepair(RepairTask.INV_BACKGROUND);
 				if (cutSceneActive)
 				{
-					Widget invWidget = client.getWidget(classicResizableGroupId, 97);
-					if (invWidget != null && invWidget.isHidden())
-					{
-						invWidget.setHidden(false);
-					}
+					scheduleRepair(RepairTask.CUTSCENE_INVENTORY);
 				}
 				break;
-			case 901: // Game Interface Mode changes
-				//log.debug("script 901: gameClientLayoutChanged()");
-				gameClientLayoutChanged();
-				break;
 			case 175:
 			case 178:
 			case ScriptID.MESSAGE_LAYER_OPEN:
 			case ScriptID.MESSAGE_LAYER_CLOSE: //cases 113 and 664 removed d/t redundancy
 				// Chatbox opens/closes
-				if (config.isWideChatbox())
+				if (!configSnapshot.isWideChatbox())
 				{
-					//log.debug("script {}, chatboxChanged() and widenChat()",scriptId,tickCount);
-					chatboxChanged();
-					widenChat();
-					if (widgetWithBackgroundLoaded)
-					{
-						fixWidgetBackground();
-					}
+					return;
+				}
+				scheduleRepair(RepairTask.CHATBOX);
+				if (widgetWithBackgroundLoaded)
+				{
+					scheduleRepair(RepairTask.WIDGET_BACKGROUND);
 				}
 				break;
 			case 4731:
 				// TOB widget fix (party orbs flicker if omitted)
-				fixIngameOverlayWidgets();
-				break;
+				scheduleRepair(RepairTask.CLICK_WINDOW);
+				return;
 			default:
-				break;
+				return;
 		}
+		repairTaskQueue.recordFiring();
 	}
 
-	@Subscribe
-	public void onVarbitChanged(VarbitChanged event)
+	private void scheduleRepair(RepairTask task)
+	{
+		if (task.isLatencyCritical())
+		{
+			runRepairTasks(task.mask());
+		}
+		else
+		{
+			repairTaskQueue.mark(task);
+		}
+	}
+
+	// Runs the repairs marked since the last frame
+	private void runPendingRepairTasks()
+	{
+		if (repairTaskQueue.isEmpty())
+		{
+			return;
+		}
+		int tasks = repairTaskQueue.drain();
+		runRepairTasks(tasks);
+		if (log.isDebugEnabled())
+		{
+			log.debug("Repair pass: {} script firings coalesced into {} tasks",
+				repairTaskQueue.getLastPassFirings(), Integer.bitCount(tasks));
+		}
+	}
+
+	// Runs the given repairs, each at most once and in RepairTask order. Repairs that another repair in the same pass
+	// already covered are skipped.
+	private void runRepairTasks(int tasks)
+	{
+		revalidationBatch.begin();
+		try
+		{
+			boolean minimapRepositioned = false;
+			boolean dimensionsFixed = false;
+			for (RepairTask task : RepairTask.VALUES)
+			{
+				if (!RepairTaskQueue.contains(tasks, task))
+				{
+					continue;
+				}
+				switch (task)
+				{
+					case MINIMAP_WIDGETS:
+						// Also repositions the world map/wiki/store/activity adviser orbs
+						minimapRepositioned = repositionMinimapWidgets();
+						break;
+					case ORBS:
+						if (!minimapRepositioned)
+						{
+							fixWorldMapWikiStoreActAdvOrbs();
+						}
+						break;
+					case MINIMAP_SPRITES:
+						checkMinimapSprites();
+						break;
+					case INV_BACKGROUND:
+						fixInvBackground();
+						break;
+					case CUTSCENE_INVENTORY:
+						Widget invWidget = widgetHandles.get(WidgetHandle.INVENTORY);
+						if (cutSceneActive && invWidget != null && invWidget.isHidden())
+						{
+							invWidget.setHidden(false);
+						}
+						break;
+					case CHATBOX:
+						// Also fixes the interface dimensions for the new viewport height
+						dimensionsFixed = chatboxChanged();
+						widenChat();
+						prefetchSiblingLayoutPlan();
+						break;
+					case INTERFACE_DIMENSIONS:
+						if (!dimensionsFixed)
+						{
+							fixInterfaceDimensions();
+						}
+						break;
+					case WIDGET_BACKGROUND:
+						if (widgetWithBackgroundLoaded)
+						{
+							fixWidgetBackground();
+						}
+						break;
+					case STAT_GUIDE:
+						fixStatsGuide();
+						break;
+					case CLICK_WINDOW:
+						clickWindowIndex.markDirty();
+						fixIngameOverlayWidgets();
+						break;
+				}
+			}
+		}
+		finally
+		{
+			endRevalidationPass("repair", tasks);
+		}
+	}
+
+	private void handleVarbitChanged(int varbitId, int value)
 	{
 		//cutscene
-		if (event.getVarbitId() == 542)
+		if (varbitId == 542)
 		{
-			if (event.getValue() == 1)
+			if (value == 1)
 			{
 				cutSceneActive = true;
 			}
@@ -275,40 +736,113 @@ public class FixedResizableHybridPlugin extends Plugin
 			{
 				cutSceneActive = false;
 			}
+			frameContext.setCutSceneActive(cutSceneActive);
 			clientThread.invokeLater(() -> {
-				chatboxChanged();
-				widenChat();
+				// The chatbox background is rebuilt for the cutscene after the varbit changes
+				frameContext.invalidate();
+				revalidationBatch.begin();
+				try
+				{
+					chatboxChanged();
+					widenChat();
+				}
+				finally
+				{
+					endRevalidationPass("cutscene varbit", -1);
+				}
 			});
 		}
-		else if (event.getVarbitId() == Varbits.TRANSPARENT_CHATBOX)
+		else if (varbitId == Varbits.TRANSPARENT_CHATBOX)
 		{
-			if (event.getValue() == 1)
+			transparentChatboxChanged(value);
+		}
+	}
+
+	private void transparentChatboxChanged(int value)
+	{
+		if (value == 1)
+		{
+			transparentChatbox = true;
+			if (configSnapshot.chatboxViewportCentering())
 			{
-				transparentChatbox = true;
-				wideChatViewportOffset = 0;
 				configManager.setConfiguration(
 					"fixedresizablehybrid",
 					"chatboxViewportCentering",
 					false
 				);
 			}
-			else if (event.getValue() == 0)
+		}
+		else if (value == 0)
+		{
+			transparentChatbox = false;
+		}
+	}
+
+	@Subscribe
+	public void onGameStateChanged(GameStateChanged event)
+	{
+		GameState gameState = event.getGameState();
+		if (gameState == GameState.LOGGED_IN)
+		{
+			loggedInAt = System.currentTimeMillis();
+			if (reapplyOnLogin)
 			{
-				transparentChatbox = false;
-				wideChatViewportOffset = 23;
+				// The interfaces come back vanilla, and script 901 isn't guaranteed after a reconnect
+				reapplyOnLogin = false;
+				queuePluginInitialization();
 			}
 		}
+		else if (isInterfaceTeardown(gameState))
+		{
+			// The saved originals belong to interfaces that are about to be rebuilt, so the layout is reset now and
+			// applied again from scratch on the next login instead of being skipped as already applied
+			reapplyOnLogin |= widgetsModified || pendingInitGeneration != 0;
+			// Dropped before the reset so the login screen and hops don't dispatch BeforeRender, every client script,
+			// varbit changes or widget loads to the active handlers
+			setActiveSubscriberRegistered(false);
+			resetWidgets();
+		}
+		// Interfaces are rebuilt on login, world hops and logouts without a WidgetClosed for every group
+		widgetHandles.invalidateAll();
+		refreshGameClientLayout("GameStateChanged " + gameState);
+		onReadinessSignal();
+	}
+
+	// Game states that rebuild the top level interfaces. LOADING isn't one, the interfaces survive region loads.
+	private static boolean isInterfaceTeardown(GameState gameState)
+	{
+		return gameState == GameState.LOGIN_SCREEN
+			|| gameState == GameState.LOGIN_SCREEN_AUTHENTICATOR
+			|| gameState == GameState.HOPPING
+			|| gameState == GameState.CONNECTION_LOST;
 	}
 
+	// Fallback for a pending initialization that didn't see any readiness signal, retried once per tick
 	@Subscribe
-	public void onGameTick(GameTick gameTick)
+	public void onGameTick(GameTick event)
 	{
-		if (resizeOnGameTick)
+		if (widgetsModified && ++widgetHandleReportTicks >= WIDGET_HANDLE_REPORT_TICKS)
 		{
-			//log.debug("onGameTick(): triggered for resize (AR)");
-			resizeByAspectRatio();
-			resizeOnGameTick = false;
+			log.debug("Widget handles over the last {} ticks: {} hits, {} lookups ({}% hit rate)", widgetHandleReportTicks,
+				widgetHandles.getHits(), widgetHandles.getMisses(), String.format("%.1f", widgetHandles.getHitRate()));
+			widgetHandles.resetCounters();
+			widgetHandleReportTicks = 0;
+		}
+		if (++warmStartSaveTicks >= WARM_START_SAVE_TICKS)
+		{
+			saveWarmStartCache();
+			warmStartSaveTicks = 0;
+		}
+		if (pendingInitGeneration == 0 || System.currentTimeMillis() - initRequestedAt < READINESS_TIMEOUT_MS)
+		{
+			return;
+		}
+		if (!readinessTimedOut)
+		{
+			readinessTimedOut = true;
+			log.debug("No readiness signal within {} ms, retrying initialization every tick", READINESS_TIMEOUT_MS);
 		}
+		scheduleInitializationAttempt();
 	}
 
 
@@ -318,11 +852,12 @@ public class FixedResizableHybridPlugin extends Plugin
 		int groupID = event.getGroupId();
 
 		//log.debug("Widget loaded: {}", groupID);
-
-		if (WIDGETS_WITH_BACKGROUNDS.contains(groupID))
+		// Handles are dropped here rather than in ActiveLayoutSubscriber so loads while the layout isn't applied count too
+		widgetHandles.invalidateGroup(groupID);
+		if (LAYOUT_ROOT_GROUPS.contains(groupID))
 		{
-			widgetWithBackgroundLoaded = true;
-			widgetsToFixBeforeRender.add(groupID);
+			refreshGameClientLayout("WidgetLoaded " + groupID);
+			onReadinessSignal();
 		}
 	}
 
@@ -330,61 +865,170 @@ public class FixedResizableHybridPlugin extends Plugin
 	public void onWidgetClosed(WidgetClosed event)
 	{
 		int groupID = event.getGroupId();
-
-		if (WIDGETS_WITH_BACKGROUNDS.contains(groupID) && event.isUnload())
+		widgetHandles.invalidateGroup(groupID);
+		if (LAYOUT_ROOT_GROUPS.contains(groupID))
 		{
-			//log.debug("onWidgetClosed(): fairy ring closed");
-			widgetWithBackgroundLoaded = false;
+			refreshGameClientLayout("WidgetClosed " + groupID);
 		}
 	}
 
-	// Will continue trying to initialize until the GameState has been stabilized as logged in (e.g. layout == 2 or 3)
+	// Requests initialization once the classic-resizable layout is ready. Readiness isn't polled every client cycle:
+	// a one-shot attempt is scheduled now and again on each signal that can make the layout ready (WidgetLoaded of a
+	// root group, script 901 and GameStateChanged, see onReadinessSignal()), with a per-tick retry after
+	// READINESS_TIMEOUT_MS as a fallback in case none of them arrive.
 	// For some reason you can't use invoke() here or else it will delete the minimap orbs when you change interface mode.
+	// Initialization is single-flight: while one is pending, further requests are folded into it (it reads the latest
+	// state when it runs), and a cancelled or superseded attempt drops itself by comparing generations.
 	private void queuePluginInitialization()
 	{
 		//log.debug("queuePluginInitialization()");
-		//invokeLater will keep running until it returns true
+		if (pendingInitGeneration != 0)
+		{
+			redundantInitializations++;
+			log.debug("Initialization already pending (generation {}), {} redundant initializations avoided",
+				pendingInitGeneration, redundantInitializations);
+		}
+		else
+		{
+			pendingInitGeneration = ++initGeneration;
+			initRequestedAt = System.currentTimeMillis();
+			readinessProbes = 0;
+			readinessTimedOut = false;
+		}
+		scheduleInitializationAttempt();
+	}
+
+	// Schedules a single readiness probe for the pending initialization, at most one is queued at a time
+	private void scheduleInitializationAttempt()
+	{
+		if (pendingInitGeneration == 0 || initAttemptQueued)
+		{
+			return;
+		}
+		initAttemptQueued = true;
+		final int generation = pendingInitGeneration;
 		clientThread.invokeLater(() ->
 		{
-			// Uses getGameClientLayout() to determine when the game is ready to be initialized.
-			int gameClientLayout = getGameClientLayout();
-			if (gameClientLayout != -1)
+			initAttemptQueued = false;
+			if (pendingInitGeneration == generation)
 			{
-				if (gameClientLayout == 2)
-				{
-					initializePlugin();
-				}
-				return true;
+				attemptPluginInitialization();
 			}
-			return false;
 		});
 	}
 
+	// Probes the layout to determine whether the game is ready to be initialized. If it isn't, the initialization
+	// stays pending until the next readiness signal.
+	private void attemptPluginInitialization()
+	{
+		readinessProbes++;
+		GameClientLayout gameClientLayout = refreshGameClientLayout("initialization");
+		if (gameClientLayout == GameClientLayout.UNKNOWN)
+		{
+			return;
+		}
+		pendingInitGeneration = 0;
+		if (gameClientLayout != GameClientLayout.CLASSIC_RESIZABLE)
+		{
+			return;
+		}
+		if (widgetsModified)
+		{
+			// Already initialized for this layout, e.g. script 901 fired again without a real transition
+			redundantInitializations++;
+			log.debug("Skipping initialization, layout already applied ({} redundant initializations avoided)",
+				redundantInitializations);
+			return;
+		}
+		log.debug("Initializing after {} readiness probes, {} ms after the request",
+			readinessProbes, System.currentTimeMillis() - initRequestedAt);
+		initializePlugin();
+		awaitingFirstFrame = true;
+	}
+
+	// Called for every signal that can make the layout ready, retries a pending initialization
+	private void onReadinessSignal()
+	{
+		if (pendingInitGeneration != 0)
+		{
+			scheduleInitializationAttempt();
+		}
+	}
+
+	private void cancelPluginInitialization()
+	{
+		pendingInitGeneration = 0;
+	}
+
 	// Initializes the plugin by modifying necessary widgets and creating custom sprites.
 	// Ensures the minimap, inventory, and viewport are properly adjusted for fixed mode.
 	// Also resizes 16:9 if config option is true.
 	private void initializePlugin()
+	{
+		revalidationBatch.begin();
+		try
+		{
+			applyLayout();
+		}
+		finally
+		{
+			endRevalidationPass("initialization", -1);
+		}
+	}
+
+	private void applyLayout()
 	{
 		//log.debug("initializePlugin()");
 		widgetsModified = true;
+		setActiveSubscriberRegistered(true);
+		lastCanvasWidth = client.getCanvasWidth();
+		lastCanvasHeight = client.getCanvasHeight();
 		resizeRenderViewport();
 		resizeByAspectRatio();
+		enabledOverlays.invalidateGeometry();
 		overlayManager.add(enabledOverlays);
 
 		fixInterfaceDimensions();
-		repositionMinimapWidgets();
-		createMinimapInvSprites();
-		if (config.isWideChatbox())
+		applyFixedModeLayout();
+		if (configSnapshot.isWideChatbox())
 		{
 			widenChat();
 			setupWideChatboxWidget();
 		}
 	}
 
+	// Applies the static fixed-mode layout (FixedModeLayoutSpec), one program per feature so each one's saves are
+	// owned by it, then the plan-driven orbs
+	private void applyFixedModeLayout()
+	{
+		if (runLayoutProgram(FixedModeLayoutSpec.MINIMAP_FRAME, LayoutFeature.MINIMAP_FRAME) != 0)
+		{
+			positionMinimapOrbs();
+		}
+		runLayoutProgram(FixedModeLayoutSpec.ORB_FIXUPS, LayoutFeature.ORBS);
+		runLayoutProgram(FixedModeLayoutSpec.INVENTORY_FRAME, LayoutFeature.INVENTORY_FRAME);
+		enabledOverlays.invalidateGeometry();
+	}
+
+	// Runs a compiled layout program, only in classic-resizable since every widget it saves is reset from there.
+	// Returns the mask of sections that were applied.
+	private int runLayoutProgram(LayoutProgram program, LayoutFeature owner)
+	{
+		if (getGameClientLayout() != GameClientLayout.CLASSIC_RESIZABLE)
+		{
+			return 0;
+		}
+		int sections = layoutInterpreter.apply(program, owner.bit());
+		log.debug("Layout program {}: {}/{} sections, {} ops in {} us",
+			program.getName(), Integer.bitCount(sections), program.getSectionCount(),
+			layoutInterpreter.getLastOps(), layoutInterpreter.getLastApplyNanos() / 1000);
+		return sections;
+	}
+
 	private void resizeByAspectRatio()
 	{
 		//log.debug("resizeByAspectRatio()");
-		if (!config.aspectRatioResize())
+		if (!configSnapshot.aspectRatioResize())
 		{
 			return;
 		}
@@ -399,7 +1043,7 @@ public class FixedResizableHybridPlugin extends Plugin
 	private Dimension calculateAspectRatioDimensions()
 	{
 		//log.debug("calculateAspectRatioDimensions()");
-		Widget fullCanvas = client.getWidget(classicResizableGroupId, 34);
+		Widget fullCanvas = widgetHandles.get(WidgetHandle.FULL_CANVAS);
 		if (fullCanvas == null || fullCanvas.isHidden())
 		{
 			return null;
@@ -411,10 +1055,10 @@ public class FixedResizableHybridPlugin extends Plugin
 		int currentWidth = stretchedDimensions.width;
 		int currentHeight = stretchedDimensions.height;
 
-		int aspectWidth = config.aspectRatioWidthResize();
-		int aspectHeight = config.aspectRatioHeightResize();
+		int aspectWidth = configSnapshot.aspectRatioWidthResize();
+		int aspectHeight = configSnapshot.aspectRatioHeightResize();
 
-		if (config.resizeBy() == ResizeBy.WIDTH)
+		if (configSnapshot.resizeBy() == ResizeBy.WIDTH)
 		{
 			int newHeight = aspectHeight * currentWidth / aspectWidth;
 			return new Dimension(currentWidth, newHeight);
@@ -432,19 +1076,25 @@ public class FixedResizableHybridPlugin extends Plugin
 		// Validate and adjust the dimensions
 		int processedWidth = Math.max(Math.min(dimension.width, 7680), Constants.GAME_FIXED_WIDTH);
 		int processedHeight = Math.max(Math.min(dimension.height, 2160), Constants.GAME_FIXED_HEIGHT);
-		Dimension processedGameSize = new Dimension(processedWidth, processedHeight);
 
-		Dimension currentSize = configManager.getConfiguration("runelite", "gameSize", Dimension.class);
-		if (processedGameSize.equals(currentSize))
+		// Goes through the runelite/gameSize config so ClientUI applies the size on the EDT, keeping the lock window size
+		// and contain in screen settings. Nothing is written when the game is already the target size.
+		Dimension currentSize = client.getStretchedDimensions();
+		if (currentSize.width == processedWidth && currentSize.height == processedHeight)
 		{
-			Dimension processedGameSizePlus1 = new Dimension(processedWidth + 1, processedHeight);
-			configManager.setConfiguration("runelite", "gameSize", processedGameSizePlus1);
-			resizeOnGameTick = true;
+			return;
 		}
-		else
+		Dimension processedGameSize = new Dimension(processedWidth, processedHeight);
+		log.debug("Resizing game from {}x{} to {}x{}", currentSize.width, currentSize.height, processedWidth, processedHeight);
+		Dimension storedSize = configManager.getConfiguration("runelite", "gameSize", Dimension.class);
+		if (processedGameSize.equals(storedSize))
 		{
-			configManager.setConfiguration("runelite", "gameSize", processedGameSize);
+			// The stored size already matches but the window was resized since, so setting it again wouldn't fire a
+			// config change. Both changes are applied on the EDT after this returns, by which time the config holds the
+			// target size, so the window is only resized once.
+			configManager.setConfiguration("runelite", "gameSize", new Dimension(processedWidth + 1, processedHeight));
 		}
+		configManager.setConfiguration("runelite", "gameSize", processedGameSize);
 	}
 
 	// Saves the widget state under these conditions:
@@ -453,221 +1103,410 @@ public class FixedResizableHybridPlugin extends Plugin
 	//    - prevents overwriting of the vanilla state when functions are called more than once
 	// The resetLast parameter is specified for the function resetWidgets() to allow for some saved widgets
 	// to be reset after the others, preventing issue where parent widgets needs to be revalidated again.
-	private void saveWidgetState(Widget widget)
+	// The owner is the feature the change belongs to, so revertFeatureUnits() can restore just that feature.
+	private void saveWidgetState(LayoutFeature owner, Widget widget)
 	{
-		saveWidgetState(widget, false);
+		saveWidgetState(owner, widget, false);
 	}
 
-	private void saveWidgetState(Widget widget, boolean resetLast)
+	private void saveWidgetState(LayoutFeature owner, Widget widget, boolean resetLast)
 	{
-		if (widget == null || getGameClientLayout() != 2)
+		if (widget == null || getGameClientLayout() != GameClientLayout.CLASSIC_RESIZABLE)
 		{
 			return;
 		}
-		int widgetId = widget.getId();
-		if (originalStates.containsKey(widgetId))
+		widgetStateLedger.save(widget, resetLast, owner.bit());
+	}
+
+	// Returns the cached game client layout. The cache is only refreshed on the signals that can actually change the
+	// layout (script 901, GameStateChanged, and the root groups 161/164/548 loading or closing), see refreshGameClientLayout().
+	private GameClientLayout getGameClientLayout()
+	{
+		return gameClientLayout;
+	}
+
+	// Probes the root widgets to determine the current game client layout mode and updates the cached value.
+	// Transitions are logged with the time since login so the classic-resizable readiness wait can be measured.
+	private GameClientLayout refreshGameClientLayout(String signal)
+	{
+		GameClientLayout layout = probeGameClientLayout();
+		if (layout != gameClientLayout)
 		{
-			return;
+			long now = System.currentTimeMillis();
+			log.debug("Game client layout {} -> {} on {} at {} ({} ms since login)",
+				gameClientLayout, layout, signal, now, loggedInAt > 0 ? now - loggedInAt : -1);
+			gameClientLayout = layout;
+			widgetHandles.invalidateAll();
 		}
-		WidgetState widgetState = new WidgetState(
-			widget.getSpriteId(),
-			widget.getOriginalX(),
-			widget.getOriginalY(),
-			widget.getOriginalWidth(),
-			widget.getOriginalHeight(),
-			widget.getXPositionMode(),
-			widget.getYPositionMode(),
-			widget.getWidthMode(),
-			widget.getHeightMode(),
-			widget.isHidden(),
-			widget.isSelfHidden(),
-			resetLast
-		);
-		originalStates.put(widgetId, widgetState);
-	}
-
-	// Determines the current game client layout mode.
-	//
-	// @return 1 if the layout is Fixed mode.
-	// 2 if the layout is Resizable - Classic mode.
-	// 3 if the layout is Resizable - Modern mode.
-	// -1 if the layout cannot be determined.
-	private int getGameClientLayout()
+		return layout;
+	}
+
+	private GameClientLayout probeGameClientLayout()
 	{
-		//log.debug("getGameClientLayout()");
 		if (client.getGameState() == GameState.LOGGED_IN)
 		{
 			Widget classicResizableWidget = client.getWidget(InterfaceID.RESIZABLE_VIEWPORT, 0);
 			if (classicResizableWidget != null && !classicResizableWidget.isHidden())
 			{
-				return 2;
+				return GameClientLayout.CLASSIC_RESIZABLE;
 			}
 			Widget modernResizableWidget = client.getWidget(InterfaceID.RESIZABLE_VIEWPORT_BOTTOM_LINE, 0);
 			if (modernResizableWidget != null && !modernResizableWidget.isHidden())
 			{
-				return 3;
+				return GameClientLayout.MODERN_RESIZABLE;
 			}
 			Widget classicFixedWidget = client.getWidget(InterfaceID.FIXED_VIEWPORT, 0);
 			if (classicFixedWidget != null && !classicFixedWidget.isHidden())
 			{
-				return 1;
+				return GameClientLayout.FIXED;
+			}
+		}
+		return GameClientLayout.UNKNOWN;
+	}
+
+	// Handles changes in the game client layout and triggers appropriate actions.
+	//
+	// This function is called after `onScriptPostFired()` for `scriptId == 901`.
+	// It offers two key benefits over using `onGameStateChange()` or `client.isResizable()`:
+	// 1. Prevents premature initialization by ensuring widgets are fully drawn, as
+	//    the layout probe will return UNKNOWN if called too early.
+	// 2. Provides a more specific response based on the interface layout, unlike the
+	//    more general `isResizable()` method.
+	//
+	// If the layout changes to classic-resizable, the plugin is initialized.
+	// For other layouts (fixed or modern-resizable), widgets are reset to avoid
+	// interference caused by switching layouts.
+	private void gameClientLayoutChanged()
+	{
+		//log.debug("gameClientLayoutChanged()");
+		refreshGameClientLayout("script 901");
+		if (getGameClientLayout() == GameClientLayout.CLASSIC_RESIZABLE)
+		{
+			queuePluginInitialization();
+		}
+		else
+		{
+			resetWidgets();
+		}
+	}
+
+
+	// Adjusts the positions of the World Map, Wiki, Store, and Activity Adviser orbs to match fixed mode alignment.
+	//
+	// This function is executed in the following cases:
+	//  1. During initialization to set the positions of the four orbs.
+	//  2. After `onScriptPostFired()` (scriptId == 1699 || scriptId == 3305)
+	//     - Resets the positions of right-aligned minimap orbs.
+	//
+	// When the game layout is in classic-resizable mode (int 2), the function runs FixedModeLayoutSpec.ORB_FIXUPS:
+	// - Saves the current state of each orb.
+	// - Sets or resets their positions to match the fixed mode layout.
+	private void fixWorldMapWikiStoreActAdvOrbs()
+	{
+		//log.debug("fixWorldMapWikiStoreActAdvOrbs()");
+		runLayoutProgram(FixedModeLayoutSpec.ORB_FIXUPS, LayoutFeature.ORBS);
+	}
+
+	// Used in volcanic mine overlay fix. There are likely other widgets this fixes too (minigame overlays)
+	// The click window's descendants are only walked when clickWindowIndex is rebuilt (see onWidgetLoaded/onWidgetClosed),
+	// every other frame just re-checks the indexed widgets.
+	private void fixIngameOverlayWidgets()
+	{
+		if (!widgetsModified)
+		{
+			return;
+		}
+		Widget clickWindow = frameContext.getClickWindow();
+		Widget renderViewport = frameContext.getRenderViewport();
+		if (clickWindow != null && renderViewport != null)
+		{
+			boolean changed = widgetWriter.setXPositionMode(WidgetWriter.Site.CLICK_WINDOW, clickWindow, 0);
+			changed |= widgetWriter.setYPositionMode(WidgetWriter.Site.CLICK_WINDOW, clickWindow, 0);
+			changed |= widgetWriter.setOriginalWidth(WidgetWriter.Site.CLICK_WINDOW, clickWindow, renderViewport.getWidth());
+			changed |= widgetWriter.setOriginalHeight(WidgetWriter.Site.CLICK_WINDOW, clickWindow, renderViewport.getHeight());
+			if (changed)
+			{
+				revalidationBatch.markDirty(clickWindow);
+			}
+			if (clickWindowIndex.needsRebuild(clickWindow))
+			{
+				clickWindowIndex.rebuild(clickWindow);
+				log.debug("Click window index rebuilt: {} candidates, {} nodes walked (previously walked every frame)",
+					clickWindowIndex.size(), clickWindowIndex.getWalkedNodes());
+			}
+			boolean fixHeights = configSnapshot.isWideChatbox() && configSnapshot.chatboxViewportCentering() && frameContext.isChatboxOpen();
+			int changedNodes = clickWindowIndex.apply(fixHeights, revalidationBatch);
+			if (log.isTraceEnabled())
+			{
+				log.trace("Click window pass visited {} nodes ({} walked before indexing), {} changed",
+					clickWindowIndex.getVisitedNodes(), clickWindowIndex.getWalkedNodes(), changedNodes);
+			}
+		}
+	}
+
+	private void onResizeSignal()
+	{
+		long now = System.currentTimeMillis();
+		if (!resizePending)
+		{
+			resizePending = true;
+			resizeStartedAt = now;
+			resizeSignals = 0;
+			provisionalRelayouts = 0;
+			resizeNanos = 0;
+		}
+		resizeSignals++;
+		lastResizeSignalAt = now;
+		provisionalLayoutApplied = false;
+	}
+
+	// Collapses every resize signal (script 904, canvas size changes) since the last frame into at most one relayout.
+	// While the size keeps changing only the cheap provisional layout is applied; the full chatbox layout runs once the
+	// size has been stable for the configured settle delay.
+	private void processPendingResize()
+	{
+		int canvasWidth = client.getCanvasWidth();
+		int canvasHeight = client.getCanvasHeight();
+		if (canvasWidth != lastCanvasWidth || canvasHeight != lastCanvasHeight)
+		{
+			lastCanvasWidth = canvasWidth;
+			lastCanvasHeight = canvasHeight;
+			onResizeSignal();
+		}
+		if (!resizePending)
+		{
+			return;
+		}
+		if (!configSnapshot.isWideChatbox() || getGameClientLayout() != GameClientLayout.CLASSIC_RESIZABLE)
+		{
+			resizePending = false;
+			enabledOverlays.invalidateGeometry();
+			return;
+		}
+
+		long start = System.nanoTime();
+		revalidationBatch.begin();
+		try
+		{
+			if (System.currentTimeMillis() - lastResizeSignalAt < configSnapshot.resizeSettleDelay())
+			{
+				if (!provisionalLayoutApplied)
+				{
+					applyProvisionalResizeLayout();
+					provisionalLayoutApplied = true;
+					provisionalRelayouts++;
+				}
+			}
+			else
+			{
+				//log.debug("window resize settled: widenChat()");
+				chatboxChanged();
+				widenChat();
+				prefetchSiblingLayoutPlan();
+				resizePending = false;
+			}
+		}
+		finally
+		{
+			endRevalidationPass("resize", -1);
+		}
+		enabledOverlays.invalidateGeometry();
+		resizeNanos += System.nanoTime() - start;
+
+		if (!resizePending)
+		{
+			log.debug("Resize settled after {} ms: {} signals, {} provisional + 1 full relayouts, {} us on the client thread",
+				System.currentTimeMillis() - resizeStartedAt, resizeSignals, provisionalRelayouts, resizeNanos / 1000);
+		}
+	}
+
+	// Cheap layout used while the window is being dragged: only stretches the chatbox to the new width so the viewport
+	// isn't uncovered. Chat buttons, dialogue options and the viewport height are left for the settle pass.
+	private void applyProvisionalResizeLayout()
+	{
+		if (frameContext.getCanvas() == null)
+		{
+			return;
+		}
+		// Skips the plan cache, so every intermediate drag size isn't planned and cached
+		int wideChatboxWidth = LayoutPlan.wideChatWidth(frameContext.getCanvasWidth());
+		Widget chatParent = widgetHandles.get(WidgetHandle.CHATBOX_PARENT);
+		if (chatParent != null && widgetWriter.setOriginalWidth(WidgetWriter.Site.PROVISIONAL_RESIZE, chatParent, wideChatboxWidth))
+		{
+			revalidationBatch.markDirty(chatParent);
+		}
+		Widget chatFrame = widgetHandles.get(WidgetHandle.CHATBOX_FRAME);
+		if (chatFrame != null && widgetWriter.setOriginalWidth(WidgetWriter.Site.PROVISIONAL_RESIZE, chatFrame, wideChatboxWidth))
+		{
+			revalidationBatch.markDirty(chatFrame);
+		}
+		Widget chatboxBackgroundParent = widgetHandles.get(WidgetHandle.CHATBOX_TRANSPARENT_BACKGROUND);
+		if (chatboxBackgroundParent != null)
+		{
+			Widget[] chatBackgroundChildren = chatboxBackgroundParent.getDynamicChildren();
+			if (chatBackgroundChildren.length == 4)
+			{
+				widgetWriter.setOriginalWidth(WidgetWriter.Site.PROVISIONAL_RESIZE, chatBackgroundChildren[1],
+					LayoutPlan.chatMiddleWidth(wideChatboxWidth));
+			}
+		}
+	}
+
+	// Ends a revalidation pass and logs how many revalidations it took. The id is the script id for script passes.
+	private void endRevalidationPass(String pass, int id)
+	{
+		if (revalidationBatch.end() && revalidationBatch.getLastPassMarked() > 0 && log.isDebugEnabled())
+		{
+			log.debug("Revalidation pass ({} {}): {} widgets marked dirty, {} revalidated",
+				pass, id, revalidationBatch.getLastPassMarked(), revalidationBatch.getLastPassRevalidated());
+		}
+	}
+
+	// Returns the memoized layout plan for the current canvas size and UI mode. Falls back to the plan saved by a
+	// previous session, and builds it here if there is none and the planner hasn't prefetched it (initialization,
+	// config changes, or a state the planner wasn't asked about).
+	private LayoutPlan getLayoutPlan()
+	{
+		long key = getLayoutPlanKey();
+		LayoutPlan plan = layoutPlanCache.get(key);
+		if (plan == null)
+		{
+			plan = warmStartCache.getPlan(key);
+			if (plan == null)
+			{
+				plan = captureLayoutPlanInputs().build();
+				clientThreadPlanBuilds++;
 			}
+			cacheLayoutPlan(plan);
 		}
-		return -1;
+		return plan;
 	}
 
-	// Handles changes in the game client layout and triggers appropriate actions.
-	//
-	// This function is called after `onScriptPostFired()` for `scriptId == 901`.
-	// It offers two key benefits over using `onGameStateChange()` or `client.isResizable()`:
-	// 1. Prevents premature initialization by ensuring widgets are fully drawn, as
-	//    `getGameClientLayout()` will return -1 if called too early.
-	// 2. Provides a more specific response based on the interface layout, unlike the
-	//    more general `isResizable()` method.
-	//
-	// If the layout changes to classic-resizable, the plugin is initialized.
-	// For other layouts (fixed or modern-resizable), widgets are reset to avoid
-	// interference caused by switching layouts.
-	private void gameClientLayoutChanged()
+	private void cacheLayoutPlan(LayoutPlan plan)
 	{
-		//log.debug("gameClientLayoutChanged()");
-		if (getGameClientLayout() == 2)
+		layoutPlanCache.put(plan);
+		warmStartCache.putPlan(plan);
+	}
+
+	// Writes the warm start cache on the background worker if it changed since the last save
+	private void saveWarmStartCache()
+	{
+		Runnable save = warmStartCache.save();
+		if (save == null)
 		{
-			queuePluginInitialization();
+			return;
 		}
-		else
+		try
 		{
-			resetWidgets();
+			backgroundWorker.execute(save);
+		}
+		catch (RejectedExecutionException e)
+		{
+			log.debug("Warm start cache save rejected", e);
 		}
 	}
 
+	private long getLayoutPlanKey()
+	{
+		return getLayoutPlanKey(frameContext.isChatboxOpen());
+	}
 
-	// Adjusts the positions of the World Map, Wiki, Store, and Activity Adviser orbs to match fixed mode alignment.
-	//
-	// This function is executed in the following cases:
-	//  1. During initialization to set the positions of the four orbs.
-	//  2. After `onScriptPostFired()` (scriptId == 1699 || scriptId == 3305)
-	//     - Resets the positions of right-aligned minimap orbs.
-	//
-	// When the game layout is in classic-resizable mode (int 2), the function:
-	// - Saves the current state of each orb.
-	// - Sets or resets their positions to match the fixed mode layout.
-	private void fixWorldMapWikiStoreActAdvOrbs()
+	private long getLayoutPlanKey(boolean chatOpen)
 	{
-		//log.debug("fixWorldMapWikiStoreActAdvOrbs()");
-		if (getGameClientLayout() == 2)
-		{
-			Widget worldMapOrb = client.getWidget(ComponentID.MINIMAP_WORLDMAP_ORB);
-			Widget wikiBanner = client.getWidget(ComponentID.MINIMAP_WIKI_BANNER_PARENT);
-			Widget storeOrb = client.getWidget(160, 42);
-			Widget activityAdviserOrb = client.getWidget(160, 47);
-			OrbsPosition positionMode = config.orbsPosition();
-			if (worldMapOrb != null && worldMapOrb.getOriginalX() == 0)
-			{
-				saveWidgetState(worldMapOrb);
-				setWidgetCoordinates(worldMapOrb, 23, 109);
-			}
-			if (wikiBanner != null && wikiBanner.getOriginalX() == 0)
-			{
-				saveWidgetState(wikiBanner);
-				setWidgetCoordinates(wikiBanner, 21, 129);
-			}
-			if (storeOrb != null && storeOrb.getOriginalX() == 85)
-			{
-				saveWidgetState(storeOrb);
-				setWidgetParameters(storeOrb, 0 + 13, 83 - 6, 34, 34, 2, 0, 0, 0);
-			}
-			if (activityAdviserOrb != null && activityAdviserOrb.getOriginalX() == 55)
-			{
-				saveWidgetState(activityAdviserOrb);
-				setWidgetParameters(activityAdviserOrb, 0 + 13, 50 - 6, 34, 34, 2, 0, 0, 0);
-			}
-		}
+		return LayoutPlan.key(frameContext.getCanvasWidth(), frameContext.getCanvasHeight(), chatOpen,
+			configSnapshot.isWideChatbox(), configSnapshot.chatboxViewportCentering(), transparentChatbox, cutSceneActive,
+			configSnapshot.centerChatboxButtons(), configSnapshot.orbsPosition());
 	}
 
-	// Used in volcanic mine overlay fix. There are likely other widgets this fixes too (minigame overlays)
-	private void fixIngameOverlayWidgets()
+	private LayoutPlanInputs captureLayoutPlanInputs()
 	{
-		int maxDepth = 4;
-		if (!widgetsModified)
+		return new LayoutPlanInputs(frameContext.getCanvasWidth(), frameContext.getCanvasHeight(),
+			frameContext.isChatboxOpen(), configSnapshot, transparentChatbox, cutSceneActive, chatButtonOriginalX,
+			chatButtonOriginalWidth);
+	}
+
+	// Builds the plan for the current inputs with the chatbox toggled on the background worker, so the next chatbox
+	// open/close is a cache hit. The current plan is always built inline by getLayoutPlan(), so nothing waits on this.
+	private void prefetchSiblingLayoutPlan()
+	{
+		if (!configSnapshot.isWideChatbox())
 		{
 			return;
 		}
-		Widget clickWindow = client.getWidget(classicResizableGroupId, 92);
-		Widget renderViewport = client.getWidget(classicResizableGroupId, 91);
-		if (clickWindow != null && renderViewport != null)
+		long siblingKey = getLayoutPlanKey(!frameContext.isChatboxOpen());
+		if (layoutPlanCache.contains(siblingKey))
 		{
-			clickWindow.setXPositionMode(0);
-			clickWindow.setYPositionMode(0);
-			clickWindow.setOriginalWidth(renderViewport.getWidth());
-			clickWindow.setOriginalHeight(renderViewport.getHeight());
-			clickWindow.revalidateScroll();
-			fixWidgetChildDimensions(clickWindow, maxDepth, 0); // Start recursive processing
+			return;
+		}
+		LayoutPlan savedPlan = warmStartCache.getPlan(siblingKey);
+		if (savedPlan != null)
+		{
+			layoutPlanCache.put(savedPlan);
+			return;
 		}
+		// A rejected request is fine, the plan is built inline the first time it's needed
+		layoutPlanner.request(captureLayoutPlanInputs().withChatOpen(!frameContext.isChatboxOpen()), this::cacheLayoutPlan);
 	}
 
 	// Resets the bounding boxes of game interfaces (e.g. banks, deposit boxes, settings, etc).
 	private void fixInterfaceDimensions()
 	{
 		//log.debug("fixInterfaceDimensions()");
-		Widget renderViewport = client.getWidget(classicResizableGroupId, 91);
+		Widget renderViewport = frameContext.getRenderViewport();
 
+		// Reads the laid out render viewport size below
+		revalidationBatch.flush();
 		fixIngameOverlayWidgets();
 
-		Widget oldSchoolBox = client.getWidget(OLD_SCHOOL_BOX_ID);
+		Widget oldSchoolBox = frameContext.getOldSchoolBox();
 		if (oldSchoolBox != null && renderViewport != null)
 		{
 			Widget osbParent = oldSchoolBox.getParent();
-			int parentHeight = osbParent.getOriginalHeight();
 			int renderViewportHeight = renderViewport.getHeight();
+			boolean parentChanged = false;
 			if (osbParent.getXPositionMode() == 1 || osbParent.getYPositionMode() == 1)
 			{
-				osbParent.setXPositionMode(0);
-				osbParent.setYPositionMode(0);
-				osbParent.setOriginalWidth(renderViewport.getWidth());
-				osbParent.revalidateScroll();
+				parentChanged |= widgetWriter.setXPositionMode(WidgetWriter.Site.INTERFACE_DIMENSIONS, osbParent, 0);
+				parentChanged |= widgetWriter.setYPositionMode(WidgetWriter.Site.INTERFACE_DIMENSIONS, osbParent, 0);
+				parentChanged |= widgetWriter.setOriginalWidth(WidgetWriter.Site.INTERFACE_DIMENSIONS, osbParent, renderViewport.getWidth());
 			}
-			if (!config.isWideChatbox() && parentHeight != renderViewportHeight)
+			boolean boxChanged = false;
+			if (!configSnapshot.isWideChatbox())
 			{
-				osbParent.setOriginalHeight(renderViewportHeight);
-				osbParent.revalidateScroll();
+				parentChanged |= widgetWriter.setOriginalHeight(WidgetWriter.Site.INTERFACE_DIMENSIONS, osbParent, renderViewportHeight);
 			}
-			else if (config.isWideChatbox())
+			else
 			{
-				if (isChatboxOpen() && config.chatboxViewportCentering() && !transparentChatbox)
-				{
-					osbParent.setOriginalHeight(renderViewportHeight);
-					osbParent.revalidateScroll();
-					oldSchoolBox.setOriginalHeight(0);
-					oldSchoolBox.revalidateScroll();
-				}
-				else
-				{
-					osbParent.setOriginalHeight(renderViewportHeight + wideChatViewportOffset);
-					osbParent.revalidateScroll();
-					oldSchoolBox.setOriginalHeight(165);
-					oldSchoolBox.revalidateScroll();
-				}
+				// Matches the viewport height when the viewport is centered above the open chatbox
+				LayoutPlan plan = getLayoutPlan();
+				parentChanged |= widgetWriter.setOriginalHeight(WidgetWriter.Site.INTERFACE_DIMENSIONS, osbParent,
+					renderViewportHeight + plan.getOldSchoolBoxParentExtraHeight());
+				boxChanged |= widgetWriter.setOriginalHeight(WidgetWriter.Site.INTERFACE_DIMENSIONS, oldSchoolBox, plan.getOldSchoolBoxHeight());
 			}
 
 			if (oldSchoolBox.getOriginalWidth() == 250)
 			{
-				oldSchoolBox.setOriginalWidth(0);
-				oldSchoolBox.revalidateScroll();
+				boxChanged |= widgetWriter.setOriginalWidth(WidgetWriter.Site.INTERFACE_DIMENSIONS, oldSchoolBox, 0);
+			}
+			if (parentChanged)
+			{
+				revalidationBatch.markDirty(osbParent);
 			}
-			for (Widget child : oldSchoolBox.getStaticChildren())
+			// Revalidating the old school box lays out all of its static children, which only moves them when the box or
+			// its parent was resized
+			if (parentChanged || boxChanged)
 			{
-				child.revalidateScroll();
+				revalidationBatch.markDirty(oldSchoolBox);
 			}
 		}
 	}
 
 	private void fixWidgetBackground()
 	{
-		Widget widgetBackground = client.getWidget(classicResizableGroupId, 14);
-		Widget widgetInterface = client.getWidget(classicResizableGroupId, 16);
-		Widget mainViewport = client.getWidget(classicResizableGroupId, 91);
-		Widget oldSchoolBox = client.getWidget(OLD_SCHOOL_BOX_ID);
+		Widget widgetBackground = widgetHandles.get(WidgetHandle.WIDGET_BACKGROUND);
+		Widget widgetInterface = widgetHandles.get(WidgetHandle.WIDGET_INTERFACE);
+		Widget mainViewport = frameContext.getRenderViewport();
+		Widget oldSchoolBox = frameContext.getOldSchoolBox();
 
 		// Ensure all required widgets are present
 		if (widgetBackground == null || widgetInterface == null || mainViewport == null || oldSchoolBox == null)
@@ -686,31 +1525,33 @@ public class FixedResizableHybridPlugin extends Plugin
 		Widget leftBackground = backgroundChildren[2];
 		Widget rightBackground = backgroundChildren[3];
 
-		boolean chatIsOpen = isChatboxOpen();
+		boolean chatIsOpen = frameContext.isChatboxOpen();
 
+		// Reads laid out sizes below
+		revalidationBatch.flush();
 		int topHeight = widgetInterface.getRelativeY();
 		int leftWidth = widgetInterface.getRelativeX();
 		int rightWidth = oldSchoolBox.getWidth() - widgetInterface.getWidth() - leftWidth;
 
 		// Set widths for the left and right background widgets
-		leftBackground.setOriginalWidth(leftWidth);
-		rightBackground.setOriginalWidth(rightWidth);
+		boolean changed = widgetWriter.setOriginalWidth(WidgetWriter.Site.WIDGET_BACKGROUND, leftBackground, leftWidth);
+		changed |= widgetWriter.setOriginalWidth(WidgetWriter.Site.WIDGET_BACKGROUND, rightBackground, rightWidth);
 
 		int bottomHeight;
 
-		if (config.isWideChatbox())
+		if (configSnapshot.isWideChatbox())
 		{
 			// Wide chatbox adjustments
 			if (chatIsOpen)
 			{
 				bottomHeight = oldSchoolBox.getHeight() - widgetInterface.getHeight() - topHeight;
-				bottomBackground.setOriginalY(oldSchoolBox.getParent().getHeight() - oldSchoolBox.getHeight());
+				changed |= widgetWriter.setOriginalY(WidgetWriter.Site.WIDGET_BACKGROUND, bottomBackground, oldSchoolBox.getParent().getHeight() - oldSchoolBox.getHeight());
 			}
 			else
 			{
 				// Chat closed case remains the same regardless of viewport centering
 				bottomHeight = oldSchoolBox.getParent().getHeight() - widgetInterface.getHeight() - topHeight - 23;
-				bottomBackground.setOriginalY(23);
+				changed |= widgetWriter.setOriginalY(WidgetWriter.Site.WIDGET_BACKGROUND, bottomBackground, 23);
 			}
 		}
 		else
@@ -719,13 +1560,16 @@ public class FixedResizableHybridPlugin extends Plugin
 		}
 
 		// Set final heights and Y-positions
-		topBackground.setOriginalHeight(topHeight);
-		bottomBackground.setOriginalHeight(bottomHeight);
-		leftBackground.setOriginalY(topHeight);
-		rightBackground.setOriginalY(topHeight);
+		changed |= widgetWriter.setOriginalHeight(WidgetWriter.Site.WIDGET_BACKGROUND, topBackground, topHeight);
+		changed |= widgetWriter.setOriginalHeight(WidgetWriter.Site.WIDGET_BACKGROUND, bottomBackground, bottomHeight);
+		changed |= widgetWriter.setOriginalY(WidgetWriter.Site.WIDGET_BACKGROUND, leftBackground, topHeight);
+		changed |= widgetWriter.setOriginalY(WidgetWriter.Site.WIDGET_BACKGROUND, rightBackground, topHeight);
 
 		// Revalidate the widget background to apply changes
-		widgetBackground.revalidateScroll();
+		if (changed)
+		{
+			revalidationBatch.markDirty(widgetBackground);
+		}
 	}
 
 	private void fixStatsGuide()
@@ -743,55 +1587,16 @@ public class FixedResizableHybridPlugin extends Plugin
 		statsGuideWidget.revalidateScroll();
 	}
 
-	private void fixWidgetChildDimensions(Widget widget, int maxDepth, int currentDepth)
-	{
-		// Recurse until max depth is reached (unless maxDepth is 0)
-		if (maxDepth != 0 && currentDepth >= maxDepth)
-		{
-			return;
-		}
-		// Process both static and nested children using the helper method
-		processClickWindowChildren(widget.getStaticChildren(), maxDepth, currentDepth, true);
-		processClickWindowChildren(widget.getNestedChildren(), maxDepth, currentDepth, false);
-	}
-
-	private void processClickWindowChildren(Widget[] children, int maxDepth, int currentDepth, boolean staticChildren)
-	{
-		if (children == null)
-		{
-			return;
-		}
-		for (Widget child : children)
-		{
-			if ((child.getOriginalWidth() >= 248 && child.getOriginalWidth() <= 254) && child.getWidthMode() == 1)
-			{
-				child.setOriginalWidth(0);
-			}
-			if (child.getOriginalHeight() >= 164 && child.getOriginalHeight() <= 172 && child.getHeightMode() == 1
-				&& config.isWideChatbox() && config.chatboxViewportCentering()
-				&& isChatboxOpen())
-			{
-				child.setOriginalHeight(0);
-			}
-			if (staticChildren)
-			{
-				child.revalidateScroll();
-			}
-			// Recurse into both static and nested children
-			fixWidgetChildDimensions(child, maxDepth, currentDepth + 1);
-		}
-	}
-
 	// Runs from onScriptPostFired() for the script which fires and resets the inventory background sprite
 	private void fixInvBackground()
 	{
 		if (widgetsModified)
 		{
 			//log.debug("fixInvBackground()");
-			Widget invBackground = client.getWidget(classicResizableGroupId, 38);
+			Widget invBackground = widgetHandles.get(WidgetHandle.INV_BACKGROUND);
 			if (invBackground != null && invBackground.getSpriteId() == 897)
 			{
-				saveWidgetState(invBackground);
+				saveWidgetState(LayoutFeature.INVENTORY_FRAME, invBackground);
 				invBackground.setSpriteId(1031);
 			}
 		}
@@ -804,100 +1609,47 @@ public class FixedResizableHybridPlugin extends Plugin
 	{
 		//log.debug("resetWidgets()");
 		clientThread.invoke(() -> {
+			cancelPluginInitialization();
 			removeAddedWidgets();
 			resetRenderViewport();
 			resetOriginalStates(); // sets widgetModified to false too
-			restoreSprites();
+			clickWindowIndex.clear();
+			repairTaskQueue.clear();
+			widgetHandles.invalidateAll();
+			layoutPlanner.cancel();
+			spritePipeline.cancel();
+			log.debug("Layout plans: {} hits, {} built on the client thread, {} planned ({} dropped as stale), {} cached",
+				layoutPlanCache.getHits(), clientThreadPlanBuilds, layoutPlanner.getDelivered(), layoutPlanner.getDropped(),
+				layoutPlanCache.size());
+			layoutPlanCache.clear();
+			layoutPlanner.resetCounters();
+			clientThreadPlanBuilds = 0;
+			chatButtonOriginalX = null;
+			chatButtonOriginalWidth = null;
+			setActiveSubscriberRegistered(false);
 		});
 	}
 
 	private void resetOriginalStates()
 	{
 		//log.debug("resetOriginalStates()");
-		List<Map.Entry<Integer, WidgetState>> resetLastEntries = new ArrayList<>();
-
-		// Iterate through the originalStates map
-		for (Map.Entry<Integer, WidgetState> entry : originalStates.entrySet())
-		{
-			int widgetId = entry.getKey();
-			WidgetState state = entry.getValue();
-
-			// Skip resetLast widgets for now, and adds to the list to reset last.
-			if (state.isResetLast())
-			{
-				resetLastEntries.add(entry);
-				continue;
-			}
-
-			// Retrieves the widget and resets it
-			Widget widget = client.getWidget(widgetId);
-			if (widget != null)
-			{
-				widget.setSpriteId(state.getSpriteId());
-				widget.setOriginalX(state.getOriginalX());
-				widget.setOriginalY(state.getOriginalY());
-				widget.setOriginalWidth(state.getOriginalWidth());
-				widget.setOriginalHeight(state.getOriginalHeight());
-				widget.setXPositionMode(state.getXPositionMode());
-				widget.setYPositionMode(state.getYPositionMode());
-				widget.setWidthMode(state.getWidthMode());
-				widget.setHeightMode(state.getHeightMode());
-				widget.setHidden(state.isHidden() || state.isSelfHidden());
-			}
-		}
-
-		// Revalidates reset widgets
-		clientThread.invoke(() -> {
-			for (Map.Entry<Integer, WidgetState> entry : originalStates.entrySet())
-			{
-				if (!entry.getValue().isResetLast())
-				{
-					Widget widget = client.getWidget(entry.getKey());
-					if (widget != null)
-					{
-						widget.revalidateScroll();
-					}
-				}
-			}
-		});
+		int savedWidgets = widgetStateLedger.size();
+		int fieldWrites = widgetStateLedger.restore(client);
+		log.debug("Reset {} saved widgets ({} fields written, peak ledger size {})",
+			savedWidgets, fieldWrites, widgetStateLedger.getPeakSize());
 
-		// Process widgets with isResetLast() set to true
-		for (Map.Entry<Integer, WidgetState> entry : resetLastEntries)
+		for (WidgetWriter.Site site : WidgetWriter.Site.values())
 		{
-			int widgetId = entry.getKey();
-			WidgetState state = entry.getValue();
-
-			// Retrieve the widget and reset it
-			Widget widget = client.getWidget(widgetId);
-			if (widget != null)
-			{
-				widget.setSpriteId(state.getSpriteId());
-				widget.setOriginalX(state.getOriginalX());
-				widget.setOriginalY(state.getOriginalY());
-				widget.setOriginalWidth(state.getOriginalWidth());
-				widget.setOriginalHeight(state.getOriginalHeight());
-				widget.setXPositionMode(state.getXPositionMode());
-				widget.setYPositionMode(state.getYPositionMode());
-				widget.setWidthMode(state.getWidthMode());
-				widget.setHeightMode(state.getHeightMode());
-				widget.setHidden(state.isHidden());
-			}
+			log.debug("Widget writes at {}: {} applied, {} elided", site, widgetWriter.getApplied(site), widgetWriter.getElided(site));
 		}
+		widgetWriter.resetCounters();
+		log.debug("Widget handles: {} hits, {} lookups ({}% hit rate)",
+			widgetHandles.getHits(), widgetHandles.getMisses(), String.format("%.1f", widgetHandles.getHitRate()));
+		widgetHandles.resetCounters();
+		widgetHandleReportTicks = 0;
 
-		// Revalidate widgets with isResetLast == true
-		clientThread.invoke(() -> {
-			for (Map.Entry<Integer, WidgetState> entry : resetLastEntries)
-			{
-				Widget widget = client.getWidget(entry.getKey());
-				if (widget != null)
-				{
-					widget.revalidateScroll();
-				}
-			}
-		});
-
-		// Clear the originalStates map after resetting, and sets the boolean to reflect that
-		originalStates.clear();
+		// Clear the ledger after resetting, and sets the boolean to reflect that
+		widgetStateLedger.clear();
 		widgetsModified = false;
 	}
 
@@ -905,152 +1657,56 @@ public class FixedResizableHybridPlugin extends Plugin
 	public void removeAddedWidgets()
 	{
 		//log.debug("removeAddedWidgets() (inv+minimap)");
-		//Deletes added minimap sprites + bottom border sprite
-		Widget minimapDrawArea = client.getWidget(ComponentID.RESIZABLE_VIEWPORT_MINIMAP_DRAW_AREA);
-		if (minimapDrawArea != null && minimapDrawArea.getParent() != null)
-		{
-			minimapDrawArea.getParent().deleteAllChildren();
-		}
-
-		// Deletes added inventory sprites
-		Widget invDynamicParent = client.getWidget(ComponentID.RESIZABLE_VIEWPORT_INVENTORY_PARENT);
-		if (invDynamicParent != null)
-		{
-			invDynamicParent.deleteAllChildren();
-		}
+		// Deletes the added minimap and inventory sprites
+		layoutInterpreter.revert(FixedModeLayoutSpec.INVENTORY_FRAME);
 		overlayManager.remove(enabledOverlays);
 	}
 
-	// Sets a widget's coordinates, overloaded to be able to accept both ComponentIDs or the widget directly
-	private void setWidgetCoordinates(int componentId, int newX, int newY)
+	// Sets a widget's coordinates, overloaded to be able to accept both WidgetHandles or the widget directly
+	private void setWidgetCoordinates(WidgetHandle handle, int newX, int newY)
 	{
-		setWidgetCoordinates(client.getWidget(componentId), newX, newY);
+		setWidgetCoordinates(widgetHandles.get(handle), newX, newY);
 	}
 
 	private void setWidgetCoordinates(Widget widget, int newX, int newY)
 	{
 		if (widget != null)
 		{
-			saveWidgetState(widget);
+			saveWidgetState(LayoutFeature.ORBS, widget);
 			widget.setOriginalX(newX);
 			widget.setOriginalY(newY);
-			widget.revalidateScroll();
+			revalidationBatch.markDirty(widget);
 		}
 	}
 
-	// Expanded version of the setWidgetCoordinates() function to accept more parameters
-	private void setWidgetParameters(Widget widget,
-									 int newX,
-									 int newY,
-									 int newOriginalWidth,
-									 int newOriginalHeight,
-									 int newXPositionMode,
-									 int newYPositionMode,
-									 int newWidthMode,
-									 int newHeightMode)
+	// Positions the all the minimap elements to align with fixed mode (FixedModeLayoutSpec.MINIMAP_FRAME), and saves
+	//     the original widget parameters for resetWidgets() later.
+	// Returns true if the minimap was repositioned, which includes fixWorldMapWikiStoreActAdvOrbs()
+	private boolean repositionMinimapWidgets()
 	{
-		if (widget != null)
+		//log.debug("repositionMinimapWidgets()");
+		if (runLayoutProgram(FixedModeLayoutSpec.MINIMAP_FRAME, LayoutFeature.MINIMAP_FRAME) == 0)
 		{
-			saveWidgetState(widget);
-			widget.setOriginalX(newX);
-			widget.setOriginalY(newY);
-			widget.setOriginalWidth(newOriginalWidth);
-			widget.setOriginalHeight(newOriginalHeight);
-			widget.setXPositionMode(newXPositionMode);
-			widget.setYPositionMode(newYPositionMode);
-			widget.setWidthMode(newWidthMode);
-			widget.setHeightMode(newHeightMode);
-			widget.revalidateScroll();
+			return false;
 		}
+		positionMinimapOrbs();
+		fixWorldMapWikiStoreActAdvOrbs();
+		enabledOverlays.invalidateGeometry();
+		return true;
 	}
 
-	// Positions the all the minimap elements to align with fixed mode, and saves the original widget parameters for
-	//     resetWidgets() later. Could definitely be cleaned up.
-	private void repositionMinimapWidgets()
+	// Positions the run/spec/xp/health/prayer orbs. Split out of repositionMinimapWidgets() so a change to the
+	// orbsPosition setting only has to move the orbs.
+	private void positionMinimapOrbs()
 	{
-		//log.debug("repositionMinimapWidgets()");
-		Widget minimapWidget = client.getWidget(ComponentID.RESIZABLE_VIEWPORT_MINIMAP);
-		Widget minimapSprite = client.getWidget(classicResizableGroupId, 32);
-		Widget minimapWidgetOrbsParent = client.getWidget(ComponentID.RESIZABLE_VIEWPORT_MINIMAP_ORB_HOLDER);
-		Widget minimapWidgetOrbsInterface = client.getWidget(ComponentID.MINIMAP_CONTAINER);
-		if (getGameClientLayout() == 2 &&
-			minimapWidget != null &&
-			minimapSprite != null &&
-			minimapWidgetOrbsParent != null &&
-			minimapWidgetOrbsInterface != null)
-		{
-			saveWidgetState(minimapWidget, true);
-			saveWidgetState(minimapSprite);
-			saveWidgetState(minimapWidgetOrbsInterface);
-			saveWidgetState(minimapWidgetOrbsParent);
-
-			minimapSprite.setHidden(true);
-
-			minimapWidget.setOriginalWidth(249);
-			minimapWidget.setOriginalHeight(207);
-			minimapWidget.revalidateScroll();
-
-			minimapWidgetOrbsParent.setOriginalWidth(249);
-			minimapWidgetOrbsParent.setOriginalHeight(197);
-			minimapWidgetOrbsParent.revalidateScroll();
-
-			minimapWidgetOrbsInterface.setOriginalWidth(249);
-			minimapWidgetOrbsInterface.setOriginalHeight(197);
-			minimapWidgetOrbsInterface.setWidthMode(0);
-			minimapWidgetOrbsInterface.setHeightMode(0);
-			minimapWidgetOrbsInterface.revalidateScroll();
-
-			int[][] minimapViewportAdjustment = {
-				{23, 44, 5},
-				{24, 44, 45},
-				{25, 44, 101},
-				{26, 44, 126},
-				{27, 44, 141},
-				{28, 44, 156},
-				{30, 50, 9},
-				{32, 44, 1}
-			};
-			for (int[] widgetAdjustment : minimapViewportAdjustment)
-			{
-				int childId = widgetAdjustment[0];
-				int newX = widgetAdjustment[1];
-				int newY = widgetAdjustment[2];
-				Widget wdgToAdj = (widgetAdjustment[0] == 30)
-					? client.getWidget(ComponentID.RESIZABLE_VIEWPORT_MINIMAP_DRAW_AREA)
-					: client.getWidget(classicResizableGroupId, childId);
-				if (wdgToAdj != null && wdgToAdj.getXPositionMode() == 2)
-				{
-					saveWidgetState(wdgToAdj, true);
-					// Set the position mode to absolute
-					wdgToAdj.setXPositionMode(0);
-
-					// Set the absolute coordinates using setWidgetCoordinates
-					setWidgetCoordinates(wdgToAdj, newX, newY);
-					wdgToAdj.revalidateScroll();
-				}
-			}
-			if (config.orbsPosition() == OrbsPosition.FIXED_MODE)
-			{
-				setWidgetCoordinates(ComponentID.MINIMAP_RUN_ORB, 10, 97);
-				setWidgetCoordinates(ComponentID.MINIMAP_SPEC_ORB, 32, 122);
-			}
-			else if (config.orbsPosition() == OrbsPosition.MORE_CLEARANCE)
-			{
-				setWidgetCoordinates(ComponentID.MINIMAP_RUN_ORB, 2, 97);
-				setWidgetCoordinates(ComponentID.MINIMAP_SPEC_ORB, 23, 124);
-			}
-
-			setWidgetCoordinates(ComponentID.MINIMAP_XP_ORB, 0, 11);
-			setWidgetCoordinates(ComponentID.MINIMAP_HEALTH_ORB, 0, 31);
-			setWidgetCoordinates(ComponentID.MINIMAP_PRAYER_ORB, -23, 124);
-			//setWidgetCoordinates(ComponentID.MINIMAP_PRAYER_ORB, 0, 65);
-			//compass widgets
-			setWidgetCoordinates(client.getWidget(classicResizableGroupId, 31), 26, 1);
-			setWidgetCoordinates(client.getWidget(classicResizableGroupId, 29), 28, 3);
-
-			fixWorldMapWikiStoreActAdvOrbs();
-			minimapWidget.revalidateScroll();
-		}
+		LayoutPlan plan = getLayoutPlan();
+		setWidgetCoordinates(WidgetHandle.RUN_ORB, plan.getRunOrbX(), plan.getRunOrbY());
+		setWidgetCoordinates(WidgetHandle.SPEC_ORB, plan.getSpecOrbX(), plan.getSpecOrbY());
+
+		setWidgetCoordinates(WidgetHandle.XP_ORB, 0, 11);
+		setWidgetCoordinates(WidgetHandle.HEALTH_ORB, 0, 31);
+		setWidgetCoordinates(WidgetHandle.PRAYER_ORB, -23, 124);
+		//setWidgetCoordinates(WidgetHandle.PRAYER_ORB, 0, 65);
 	}
 
 	private void checkMinimapSprites()
@@ -1060,7 +1716,7 @@ public class FixedResizableHybridPlugin extends Plugin
 			return;
 		}
 
-		Widget minimapSpriteContainer = client.getWidget(classicResizableGroupId, 22);
+		Widget minimapSpriteContainer = widgetHandles.get(WidgetHandle.MINIMAP_SPRITE_CONTAINER);
 		if (minimapSpriteContainer == null)
 		{
 			return;
@@ -1072,172 +1728,14 @@ public class FixedResizableHybridPlugin extends Plugin
 		}
 	}
 
-	// Creates new widgets (defined by newSpriteConfigs) that weren't originally loaded in classic-resizable
+	// Sets up the bounds on the inventory panel, then creates the fixed mode minimap/inventory frame sprites that
+	// weren't originally loaded in classic-resizable (FixedModeLayoutSpec.INVENTORY_FRAME)
 	private void createMinimapInvSprites()
 	{
 		//log.debug("createFixedSprites()");
-		// Get the parent widget the sprites should be under
-		Widget minimapDrawArea = client.getWidget(ComponentID.RESIZABLE_VIEWPORT_MINIMAP_DRAW_AREA);
-		Widget inventoryParentWidget = client.getWidget(ComponentID.RESIZABLE_VIEWPORT_INVENTORY_PARENT);
-		// Define the configurations for all the sprites to be created.
-		// Each row represents a sprite with the following columns:
-		// [widget, type, spriteId, originalX, originalY, originalWidth, originalHeight, xPositionMode, yPositionMode, widthMode, heightMode, noclickthrough]
-		if (minimapDrawArea != null && minimapDrawArea.getParent() != null && inventoryParentWidget != null)
-		{
-			int[][] newSpriteConfigs = {
-				{1, 5, 1182, 29, 4, 172, 156, 0, 0, 0, 0, 0, 0},  // centerMinimapSprite
-				{1, 5, 1611, 0, 160, 249, 8, 1, 0, 0, 0, 0, 0},   // bottomMinimapSprite
-				{1, 5, 1037, 0, 4, 29, 156, 0, 0, 0, 0, 0, 0},    // leftMinimapSprite
-				{1, 5, 1038, 0, 4, 48, 156, 2, 0, 0, 0, 0, 0},    // rightMinimapSprite
-				{1, 5, 1039, 48, 0, 717, 4, 2, 0, 0, 0, 0, 0},    // topThinBarRight
-				{1, 5, 1441, 0, 0, 48, 4, 2, 0, 0, 0, 0, 0},      // topThinBarLeft
-				{2, 5, 1035, 0, 37, 28, 261, 2, 2, 0, 0, 0, 0}, // right inv column
-				{2, 5, 1033, 0, 38, 31, 133, 0, 0, 0, 0, 0, 0}, // left inv column top half
-				{2, 5, 1034, 3, 171, 28, 128, 0, 0, 0, 0, 0, 0},  // left inv column bottom half
-				{2, 5, 1033, 0, 0, 3, 170, 0, 2, 0, 0, 0, 0} // left tiny strip to the left of bottom half
-			};
-			//Ensure the bounds on the parent container(s) are properly prepared.
-			inventoryWidgetBoundsFix();
-
-			// Create widgets using the configurations
-			Widget minimapParentWidget = minimapDrawArea.getParent(); // same as client.getWidget(161,22); but uses ComponentID reference
-			for (int[] newSpriteConfig : newSpriteConfigs)
-			{
-				if (newSpriteConfig[0] == 1)
-				{
-					newSpriteConfig[0] = minimapParentWidget.getId();
-				}
-				else if (newSpriteConfig[0] == 2)
-				{
-					newSpriteConfig[0] = inventoryParentWidget.getId();
-				}
-				else
-				{
-					newSpriteConfig[0] = -1;
-				}
-				// extra null check here in case we add new added widgets later, should never be null given current newSpriteConfigs
-				if (newSpriteConfig[0] != -1)
-				{
-					createNewSpriteWidget(newSpriteConfig);
-				}
-			}
-		}
-	}
-
-	private Widget createNewSpriteWidget(int[] widgetConfig)
-	{
-		Widget parent = client.getWidget(widgetConfig[0]);
-		if (parent != null)
-		{
-			Widget newSprite = parent.createChild(widgetConfig[1]);
-			newSprite.setSpriteId(widgetConfig[2]);
-			newSprite.setOriginalX(widgetConfig[3]);
-			newSprite.setOriginalY(widgetConfig[4]);
-			newSprite.setOriginalWidth(widgetConfig[5]);
-			newSprite.setOriginalHeight(widgetConfig[6]);
-			newSprite.setXPositionMode(widgetConfig[7]);
-			newSprite.setYPositionMode(widgetConfig[8]);
-			newSprite.setWidthMode(widgetConfig[9]);
-			newSprite.setHeightMode(widgetConfig[10]);
-			if (widgetConfig[11] == 1)
-			{
-				newSprite.setNoClickThrough(true);
-			}
-			if (widgetConfig[12] == 1)
-			{
-				newSprite.setSpriteTiling(true);
-			}
-			parent.revalidateScroll();
-
-			return newSprite;
-		}
-		return null;
-	}
-
-	// Sets up the coordinates and bounds on the inventory panel widget prior to creating the fixed background sprites
-	// and prior to modifying the existing inventory sprites.
-	private void inventoryWidgetBoundsFix()
-	{
-		//log.debug("inventoryWidgetBoundsFix()");
-		Widget invParent = client.getWidget(ComponentID.RESIZABLE_VIEWPORT_INVENTORY_PARENT);
-		if (invParent != null)
-		{
-			saveWidgetState(invParent, true);
-			invParent.setOriginalWidth(249);
-			invParent.setOriginalHeight(336);
-			invParent.revalidate();
-		}
-
-		Widget invBackground = client.getWidget(classicResizableGroupId, 38);
-		if (invBackground != null)
-		{
-			saveWidgetState(invBackground);
-			invBackground.setOriginalX(28);
-			invBackground.setOriginalY(37);
-			invBackground.setOriginalWidth(190);
-			invBackground.setOriginalHeight(261);
-			invBackground.setSpriteId(1031);
-			invBackground.revalidate();
-		}
-
-		Widget invLeftColumn = client.getWidget(classicResizableGroupId, 39);
-		if (invLeftColumn != null)
-		{
-			saveWidgetState(invLeftColumn);
-			invLeftColumn.setHidden(true);
-			invLeftColumn.revalidate();
-		}
-		Widget invRightColumn = client.getWidget(classicResizableGroupId, 40);
-		if (invRightColumn != null)
-		{
-			saveWidgetState(invRightColumn);
-			invRightColumn.setHidden(true);
-			invRightColumn.revalidate();
-		}
-
-		Widget invBottomBarSprite = client.getWidget(classicResizableGroupId, 41);
-		if (invBottomBarSprite != null)
-		{
-			saveWidgetState(invBottomBarSprite);
-			invBottomBarSprite.setOriginalWidth(246);
-			invBottomBarSprite.setOriginalHeight(37);
-			invBottomBarSprite.setSpriteId(1032);
-			invBottomBarSprite.revalidate();
-		}
-
-		Widget invBottomTabsParent = client.getWidget(classicResizableGroupId, 42);
-		if (invBottomTabsParent != null)
-		{
-			saveWidgetState(invBottomTabsParent, true);
-			invBottomTabsParent.setOriginalX(2);
-			invBottomTabsParent.revalidate();
-		}
-
-		Widget invTopBarSprite = client.getWidget(classicResizableGroupId, 57);
-		if (invTopBarSprite != null)
-		{
-			saveWidgetState(invTopBarSprite);
-			invTopBarSprite.setOriginalY(298);
-			invTopBarSprite.setOriginalWidth(249);
-			invTopBarSprite.setOriginalHeight(38);
-			invTopBarSprite.setSpriteId(1036);
-			invTopBarSprite.revalidate();
-		}
-
-		Widget invTopTabsParent = client.getWidget(classicResizableGroupId, 58);
-		if (invTopTabsParent != null)
-		{
-			saveWidgetState(invTopTabsParent, true);
-			invTopTabsParent.setOriginalX(2);
-			invTopTabsParent.revalidate();
-		}
-
-		Widget invViewportInterfaceController = client.getWidget(ComponentID.RESIZABLE_VIEWPORT_INTERFACE_CONTAINER);
-		if (invViewportInterfaceController != null)
+		if (runLayoutProgram(FixedModeLayoutSpec.INVENTORY_FRAME, LayoutFeature.INVENTORY_FRAME) != 0)
 		{
-			saveWidgetState(invViewportInterfaceController);
-			invViewportInterfaceController.setOriginalX(26 + 2);
-			invViewportInterfaceController.revalidate();
+			enabledOverlays.invalidateGeometry();
 		}
 	}
 
@@ -1246,18 +1744,34 @@ public class FixedResizableHybridPlugin extends Plugin
 	private void resizeRenderViewport()
 	{
 		//log.debug("resizeRenderViewport()");
-		Widget mainViewport = client.getWidget(classicResizableGroupId, 91);
+		Widget mainViewport = frameContext.getRenderViewport();
 		if (mainViewport != null)
 		{
 			// Width is set to the width of the inventory and minimap widgets because widthMode = 1 (subtracts
 			//     that value from the parent widget's dimensions).
 			mainViewport.setOriginalWidth(249);
-			if (config.isWideChatbox())
+			if (configSnapshot.isWideChatbox())
 			{
 				chatboxChanged();
 			}
 			// Configures height of viewport if wide chatbox is enabled
-			mainViewport.revalidateScroll();
+			revalidationBatch.markDirty(mainViewport);
+		}
+	}
+
+	// Undoes the height chatboxChanged() gives the render viewport in wide chat mode, for wide chat being turned off
+	private void restoreViewportHeight()
+	{
+		Widget mainViewport = frameContext.getRenderViewport();
+		if (mainViewport == null)
+		{
+			return;
+		}
+		boolean changed = widgetWriter.setOriginalHeight(WidgetWriter.Site.CHATBOX_CHANGED, mainViewport, 0);
+		changed |= widgetWriter.setYPositionMode(WidgetWriter.Site.CHATBOX_CHANGED, mainViewport, 1);
+		if (changed)
+		{
+			revalidationBatch.markDirty(mainViewport);
 		}
 	}
 
@@ -1266,7 +1780,7 @@ public class FixedResizableHybridPlugin extends Plugin
 	private void resetRenderViewport()
 	{
 		//log.debug("resetRenderViewport()");
-		Widget mainViewport = client.getWidget(classicResizableGroupId, 91);
+		Widget mainViewport = frameContext.getRenderViewport();
 		if (mainViewport != null)
 		{
 			clientThread.invoke(() -> {
@@ -1279,27 +1793,32 @@ public class FixedResizableHybridPlugin extends Plugin
 	}
 
 	//Runs after onPostScript when opening or closing of the chatbox. Handles recentering the viewport for Wide chat mode only.
-	private void chatboxChanged()
+	// Returns true if the chatbox was updated, which includes fixInterfaceDimensions()
+	private boolean chatboxChanged()
 	{
-		if (!config.isWideChatbox() || getGameClientLayout() != 2)
+		if (!configSnapshot.isWideChatbox() || getGameClientLayout() != GameClientLayout.CLASSIC_RESIZABLE)
 		{
-			return;
+			return false;
 		}
 
-		Widget mainViewport = client.getWidget(classicResizableGroupId, 91);
-		Widget chatboxFrame = client.getWidget(ComponentID.CHATBOX_FRAME);
-		Widget chatboxParent = client.getWidget(ComponentID.RESIZABLE_VIEWPORT_CHATBOX_PARENT);
+		Widget mainViewport = frameContext.getRenderViewport();
+		Widget chatboxFrame = widgetHandles.get(WidgetHandle.CHATBOX_FRAME);
+		Widget chatboxParent = widgetHandles.get(WidgetHandle.CHATBOX_PARENT);
 		if (mainViewport == null || chatboxFrame == null || chatboxParent == null)
 		{
-			return;
+			return false;
 		}
 
-		int baseHeight = (isChatboxOpen() && config.chatboxViewportCentering()) ? 165 : wideChatViewportOffset;
-		mainViewport.setOriginalHeight(baseHeight + chatboxParent.getOriginalY());
-		mainViewport.setYPositionMode(0);
-		mainViewport.revalidateScroll();
+		LayoutPlan plan = getLayoutPlan();
+		int baseHeight = plan.getViewportBaseHeight();
+		boolean viewportChanged = widgetWriter.setOriginalHeight(WidgetWriter.Site.CHATBOX_CHANGED, mainViewport, baseHeight + chatboxParent.getOriginalY());
+		viewportChanged |= widgetWriter.setYPositionMode(WidgetWriter.Site.CHATBOX_CHANGED, mainViewport, 0);
+		if (viewportChanged)
+		{
+			revalidationBatch.markDirty(mainViewport);
+		}
 
-		Widget chatboxBackgroundParent = client.getWidget(ComponentID.CHATBOX_TRANSPARENT_BACKGROUND);
+		Widget chatboxBackgroundParent = widgetHandles.get(WidgetHandle.CHATBOX_TRANSPARENT_BACKGROUND);
 		if (chatboxBackgroundParent != null)
 		{
 			int childrenCount = chatboxBackgroundParent.getDynamicChildren().length;
@@ -1310,67 +1829,69 @@ public class FixedResizableHybridPlugin extends Plugin
 			else if (childrenCount == 4)
 			{
 				Widget middleChatBackground = chatboxBackgroundParent.getDynamicChildren()[1];
-				int newWidth = (int) Math.ceil((579.0 / 519.0) * (client.getCanvasWidth() - 249) - 60);
-				middleChatBackground.setOriginalWidth(newWidth);
+				if (widgetWriter.setOriginalWidth(WidgetWriter.Site.CHATBOX_CHANGED, middleChatBackground, plan.getChatMiddleWidth()))
+				{
+					revalidationBatch.markDirty(middleChatBackground);
+				}
 			}
 		}
 
 		fixInterfaceDimensions();
+		return true;
 	}
 
 
 	private void widenChat()
 	{
 		//log.debug("Started widenChat() -> positionChatboxButtons -> *logChatWidgets()*");
-		if (!config.isWideChatbox() || !widgetsModified || getGameClientLayout() != 2)
+		if (!configSnapshot.isWideChatbox() || !widgetsModified || getGameClientLayout() != GameClientLayout.CLASSIC_RESIZABLE)
 		{
 			return;
 		}
-		Widget canvas = client.getWidget(classicResizableGroupId, 0);
-		if (canvas == null)
+		if (frameContext.getCanvas() == null)
 		{
 			return;
 		}
-		int wideChatboxWidth = canvas.getWidth() - 249;
-		Widget chatParent = client.getWidget(ComponentID.RESIZABLE_VIEWPORT_CHATBOX_PARENT);//161.96
+		int wideChatboxWidth = getLayoutPlan().getWideChatWidth();
+		Widget chatParent = widgetHandles.get(WidgetHandle.CHATBOX_PARENT);//161.96
 		if (chatParent != null)
 		{
-			saveWidgetState(chatParent);
+			saveWidgetState(LayoutFeature.WIDE_CHAT, chatParent);
 			chatParent.setOriginalWidth(wideChatboxWidth);
 			chatParent.setOriginalX(0);
 			chatParent.setXPositionMode(0);
-			chatParent.revalidateScroll();
+			revalidationBatch.markDirty(chatParent);
 		}
-		Widget chatFrame = client.getWidget(ComponentID.CHATBOX_FRAME);
+		Widget chatFrame = widgetHandles.get(WidgetHandle.CHATBOX_FRAME);
 		if (chatFrame != null)
 		{
-			saveWidgetState(chatFrame);
+			saveWidgetState(LayoutFeature.WIDE_CHAT, chatFrame);
 			chatFrame.setOriginalWidth(wideChatboxWidth);
-			chatFrame.revalidateScroll();
+			revalidationBatch.markDirty(chatFrame);
 		}
-		Widget dialogueOptions = client.getWidget(ComponentID.DIALOG_OPTION_OPTIONS);
+		Widget dialogueOptions = widgetHandles.get(WidgetHandle.DIALOG_OPTIONS);
 		if (dialogueOptions != null)
 		{
-			saveWidgetState(dialogueOptions);
+			saveWidgetState(LayoutFeature.WIDE_CHAT, dialogueOptions);
 			dialogueOptions.setOriginalX(0);
 			dialogueOptions.setXPositionMode(1);
 			Widget dialogueOptionsParent = dialogueOptions.getParent();
 			if (dialogueOptionsParent != null)
 			{
-				dialogueOptionsParent.revalidateScroll();
+				revalidationBatch.markDirty(dialogueOptionsParent);
 			}
 		}
 		Widget reportAbuseDialogueSprite = client.getWidget(875, 1);
 		if (reportAbuseDialogueSprite != null)
 		{
-			saveWidgetState(reportAbuseDialogueSprite);
+			saveWidgetState(LayoutFeature.WIDE_CHAT, reportAbuseDialogueSprite);
 			reportAbuseDialogueSprite.setHidden(true);
 		}
 		// Cooking/fletching background removal
 		Widget skillingDialogBackgroundSprite = client.getWidget(270, 1);
 		if (skillingDialogBackgroundSprite != null)
 		{
-			saveWidgetState(skillingDialogBackgroundSprite);
+			saveWidgetState(LayoutFeature.WIDE_CHAT, skillingDialogBackgroundSprite);
 			skillingDialogBackgroundSprite.setHidden(true);
 		}
 		//Center chat buttons on viewport
@@ -1379,17 +1900,20 @@ public class FixedResizableHybridPlugin extends Plugin
 
 	private void positionChatboxButtons()
 	{
-		Widget chatButtonsParent = client.getWidget(ComponentID.CHATBOX_BUTTONS);
+		Widget chatButtonsParent = widgetHandles.get(WidgetHandle.CHATBOX_BUTTONS);
 		if (chatButtonsParent == null)
 		{
 			return;
 		}
-		saveWidgetState(chatButtonsParent);
-		chatButtonsParent.setOriginalWidth(0);
-		chatButtonsParent.setWidthMode(WidgetSizeMode.MINUS);
-		chatButtonsParent.revalidateScroll();
+		saveWidgetState(LayoutFeature.WIDE_CHAT, chatButtonsParent);
+		boolean parentChanged = widgetWriter.setOriginalWidth(WidgetWriter.Site.CHAT_BUTTONS, chatButtonsParent, 0);
+		parentChanged |= widgetWriter.setWidthMode(WidgetWriter.Site.CHAT_BUTTONS, chatButtonsParent, WidgetSizeMode.MINUS);
+		if (parentChanged)
+		{
+			revalidationBatch.markDirty(chatButtonsParent);
+		}
 		//Fix for chatbuttons disappearing during cutscene and causing render bugs
-		Widget chatParent = client.getWidget(ComponentID.RESIZABLE_VIEWPORT_CHATBOX_PARENT);
+		Widget chatParent = widgetHandles.get(WidgetHandle.CHATBOX_PARENT);
 		if (cutSceneActive
 			&& chatButtonsParent.isSelfHidden()
 			&& chatParent != null
@@ -1399,9 +1923,29 @@ public class FixedResizableHybridPlugin extends Plugin
 			chatButtonsParent.setHidden(false);
 		}
 		Widget[] chatButtonsWidgets = chatButtonsParent.getStaticChildren();
-		Widget reportButton = client.getWidget(162, 31);
-		int DEFAULT_CHAT_WIDTH = 519;
-		int chatWidth = chatButtonsParent.getWidth();
+		Widget reportButton = widgetHandles.get(WidgetHandle.CHATBOX_REPORT_BUTTON);
+		LayoutPlan plan = getLayoutPlan();
+		if (!plan.hasChatButtons(chatButtonsWidgets.length))
+		{
+			// First time the buttons are positioned for this canvas size/mode, derives them from the plan's chat width
+			// and the saved originals. Later visits reuse the plan.
+			int[] originalX = new int[chatButtonsWidgets.length];
+			int[] originalWidth = new int[chatButtonsWidgets.length];
+			for (int i = 1; i < chatButtonsWidgets.length; i++)
+			{
+				Widget widget = chatButtonsWidgets[i];
+				if (widget != null)
+				{
+					saveWidgetState(LayoutFeature.WIDE_CHAT, widget);
+					originalX[i] = widgetStateLedger.getOriginalX(widget.getId());
+					originalWidth[i] = widgetStateLedger.getOriginalWidth(widget.getId());
+				}
+			}
+			plan = plan.withChatButtons(configSnapshot.centerChatboxButtons(), originalX, originalWidth);
+			cacheLayoutPlan(plan);
+			chatButtonOriginalX = originalX;
+			chatButtonOriginalWidth = originalWidth;
+		}
 
 		for (int i = 0; i < chatButtonsWidgets.length; i++)
 		{
@@ -1419,184 +1963,124 @@ public class FixedResizableHybridPlugin extends Plugin
 				if (children.length > 0 && children[0] != null)
 				{
 					Widget chatButtonsBackground = children[0];
-					saveWidgetState(chatButtonsBackground);
-					chatButtonsBackground.setOriginalWidth(0);
-					chatButtonsBackground.setWidthMode(WidgetSizeMode.MINUS);
-					chatButtonsBackground.revalidate();
+					saveWidgetState(LayoutFeature.WIDE_CHAT, chatButtonsBackground);
+					boolean backgroundChanged = widgetWriter.setOriginalWidth(WidgetWriter.Site.CHAT_BUTTONS, chatButtonsBackground, 0);
+					backgroundChanged |= widgetWriter.setWidthMode(WidgetWriter.Site.CHAT_BUTTONS, chatButtonsBackground, WidgetSizeMode.MINUS);
+					if (backgroundChanged)
+					{
+						revalidationBatch.markDirty(chatButtonsBackground);
+					}
 				}
 			}
 			else
 			{
-				//Logic for processing the actual button widgets
-				saveWidgetState(widget);
-				int originalX = originalStates.get(widget.getId()).getOriginalX();
-				int originalWidth = originalStates.get(widget.getId()).getOriginalWidth();
-				// Center align buttons with no stretching
-				if (config.centerChatboxButtons())
-				{
-					int newButtonX = ((chatWidth - DEFAULT_CHAT_WIDTH) / 2) + originalX;
-					widget.setOriginalX(newButtonX);
-					widget.setOriginalWidth(originalWidth);
+				//Logic for processing the actual button widgets (centered or stretched, see LayoutPlan.withChatButtons())
+				saveWidgetState(LayoutFeature.WIDE_CHAT, widget);
+				int buttonWidth = plan.getChatButtonWidth(i);
+				boolean buttonChanged = widgetWriter.setOriginalX(WidgetWriter.Site.CHAT_BUTTONS, widget, plan.getChatButtonX(i));
+				buttonChanged |= widgetWriter.setOriginalWidth(WidgetWriter.Site.CHAT_BUTTONS, widget, buttonWidth);
 
-					Widget[] children = widget.getStaticChildren();
-					if (children.length > 0 && children[0] != null && reportButton != null && widget != reportButton)
-					{
-						children[0].setOriginalWidth(originalWidth);
-					}
+				Widget[] children = widget.getStaticChildren();
+				if (children.length > 0 && children[0] != null && reportButton != null && widget != reportButton)
+				{
+					// Adjust the sprite under the button
+					buttonChanged |= widgetWriter.setOriginalWidth(WidgetWriter.Site.CHAT_BUTTONS, children[0], buttonWidth);
 				}
-				else
-				{ // Stretch chatbox buttons
-					int newButtonX = chatWidth * originalX / DEFAULT_CHAT_WIDTH;
-					int newButtonWidth = chatWidth * originalWidth / DEFAULT_CHAT_WIDTH;
-					widget.setOriginalX(newButtonX);
-					widget.setOriginalWidth(newButtonWidth);
-
-					Widget[] children = widget.getStaticChildren();
-					if (children.length > 0 && children[0] != null && reportButton != null && widget != reportButton)
-					{
-						// Adjust the sprite under the button
-						children[0].setOriginalWidth(newButtonWidth);
-					}
+				if (buttonChanged)
+				{
+					revalidationBatch.markDirty(widget);
 				}
-				widget.revalidateScroll();
 			}
 		}
 	}
 
-	private SpritePixels getBufferedImageSpritePixels(BufferedImage image)
+	// Only runs on shutdown. Resets keep the overrides installed, they're only drawn by the plugin's own chatbox widgets.
+	private void removeChatboxSpriteOverrides()
 	{
-		try
+		if (installedChatboxSprites == null)
 		{
-			return ImageUtil.getImageSpritePixels(image, client);
-		}
-		catch (RuntimeException ex)
-		{
-			log.debug("Unable to process buffered image: ", ex);
+			return;
 		}
-		return null;
-	}
-
-	private void restoreSprites()
-	{
-		client.getWidgetSpriteCache().reset();
 		client.getSpriteOverrides().remove(-8001);
 		client.getSpriteOverrides().remove(-8002);
 		client.getSpriteOverrides().remove(-8003);
+		client.getWidgetSpriteCache().reset();
+		installedChatboxSprites = null;
+		log.debug("Chatbox sprites: {} slicings, {} reused, {} loaded from the warm start cache, {} widget sprite cache resets",
+			spritePipeline.getChatboxSlices(), spritePipeline.getChatboxHits(), spritePipeline.getChatboxWarmStarts(),
+			widgetSpriteCacheResets + 1);
 	}
 
+	// Slices the chatbox background on the background worker (or reuses the last slices if the source is unchanged),
+	// installChatboxSprites() runs once the sprites are ready
 	private void setupChatboxSprites()
 	{
 		SpritePixels overrideSprite = client.getSpriteOverrides().get(SpriteID.CHATBOX);
-		BufferedImage chatboxImage = (overrideSprite != null) ? overrideSprite.toBufferedImage() : defaultChatboxBufferedImage;
-
-		// Crop left/right borders and convert images to sprites
-		int edgeWidth = 30;
-		int height = chatboxImage.getHeight();
-		int width = chatboxImage.getWidth();
-		SpritePixels leftSpritePixels = getBufferedImageSpritePixels(chatboxImage.getSubimage(0, 0, edgeWidth, height));
-		SpritePixels rightSpritePixels = getBufferedImageSpritePixels(chatboxImage.getSubimage(width - edgeWidth, 0, edgeWidth, height));
-		SpritePixels fullSpritePixels = getBufferedImageSpritePixels(chatboxImage);
-
-		// Reset and override sprites
-		restoreSprites();
-		client.getSpriteOverrides().put(-8001, fullSpritePixels);
-		client.getSpriteOverrides().put(-8002, leftSpritePixels);
-		client.getSpriteOverrides().put(-8003, rightSpritePixels);
+		spritePipeline.requestChatboxSprites(overrideSprite, this::installChatboxSprites);
+	}
+
+	private void installChatboxSprites(SpritePipeline.ChatboxSprites sprites)
+	{
+		if (!widgetsModified || !configSnapshot.isWideChatbox())
+		{
+			// Reset or wide chat turned off while the sprites were being sliced
+			return;
+		}
+		if (sprites == installedChatboxSprites && client.getSpriteOverrides().get(-8001) == sprites.getFull())
+		{
+			// Already installed, resetting the widget sprite cache would make the client re-decode every widget sprite
+			return;
+		}
+		client.getSpriteOverrides().put(-8001, sprites.getFull());
+		client.getSpriteOverrides().put(-8002, sprites.getLeft());
+		client.getSpriteOverrides().put(-8003, sprites.getRight());
 		client.getWidgetSpriteCache().reset();
+		installedChatboxSprites = sprites;
+		widgetSpriteCacheResets++;
 	}
 
 	private void createNewChatboxSprites()
 	{
-		if (!config.isWideChatbox())
+		if (!configSnapshot.isWideChatbox())
 		{
 			return;
 		}
 
 		// Retrieve required widgets.
-		Widget canvas = client.getWidget(classicResizableGroupId, 0); // Provides the viewport width.
-		Widget chatboxFrame = client.getWidget(ComponentID.CHATBOX_FRAME);
-		Widget chatboxButtons = client.getWidget(ComponentID.CHATBOX_BUTTONS);
-		Widget chatboxBackgroundParent = client.getWidget(ComponentID.CHATBOX_TRANSPARENT_BACKGROUND);
+		Widget chatboxFrame = widgetHandles.get(WidgetHandle.CHATBOX_FRAME);
+		Widget chatboxButtons = widgetHandles.get(WidgetHandle.CHATBOX_BUTTONS);
+		Widget chatboxBackgroundParent = widgetHandles.get(WidgetHandle.CHATBOX_TRANSPARENT_BACKGROUND);
 
 		// Ensure all widgets exist.
-		if (canvas == null || chatboxFrame == null || chatboxButtons == null || chatboxBackgroundParent == null)
+		if (frameContext.getCanvas() == null || chatboxFrame == null || chatboxButtons == null || chatboxBackgroundParent == null)
 		{
 			return;
 		}
 
-		// Calculate dimensions.
-		final int WIDTH_OFFSET = 249;
-		final int EDGE_WIDTH = 30;
-		int totalWidth = canvas.getWidth() - WIDTH_OFFSET;
-
 		Widget[] chatBackgroundChildren = chatboxBackgroundParent.getDynamicChildren();
 		if (chatboxFrame.isHidden() || chatBackgroundChildren.length != 1 || chatBackgroundChildren[0] == null)
 		{
 			return;
 		}
 
-		// Calculate middle width using the provided formula.
-		final double MULTIPLIER = 579.0 / 519.0;
-		final int MIDDLE_OFFSET = 60;
-		int middleWidth = (int) Math.ceil(MULTIPLIER * totalWidth - MIDDLE_OFFSET);
-
-		// Create middle sprite.
-		// [widget, type, spriteId, originalX, originalY, originalWidth, originalHeight,
-		//  xPositionMode, yPositionMode, widthMode, heightMode, noclickthrough, spriteTiling]
-		int[] middleChatBackgroundParentSettings = {
-			chatboxBackgroundParent.getId(), 5, -8001,
-			0, 0, middleWidth, 0,
-			WidgetPositionMode.ABSOLUTE_CENTER, WidgetPositionMode.ABSOLUTE_TOP,
-			WidgetSizeMode.ABSOLUTE, WidgetSizeMode.MINUS,
-			0, 0
-		};
-		createNewSpriteWidget(middleChatBackgroundParentSettings);
-
-		// Create left sprite.
-		int[] leftChatBackgroundParentSettings = {
-			chatboxBackgroundParent.getId(), 5, -8002,
-			0, 0, EDGE_WIDTH, 0,
-			WidgetPositionMode.ABSOLUTE_LEFT, WidgetPositionMode.ABSOLUTE_TOP,
-			WidgetSizeMode.ABSOLUTE, WidgetSizeMode.MINUS,
-			0, 0
-		};
-		createNewSpriteWidget(leftChatBackgroundParentSettings);
-
-		// Create right sprite.
-		int[] rightChatBackgroundParentSettings = {
-			chatboxBackgroundParent.getId(), 5, -8003,
-			0, 0, EDGE_WIDTH, 0,
-			WidgetPositionMode.ABSOLUTE_RIGHT, WidgetPositionMode.ABSOLUTE_TOP,
-			WidgetSizeMode.ABSOLUTE, WidgetSizeMode.MINUS,
-			0, 0
-		};
-		createNewSpriteWidget(rightChatBackgroundParentSettings);
+		if (runLayoutProgram(FixedModeLayoutSpec.WIDE_CHATBOX_SPRITES, LayoutFeature.WIDE_CHAT) == 0)
+		{
+			return;
+		}
+		// The middle sprite follows the vanilla background child, see FixedModeLayoutSpec.WIDE_CHATBOX_SPRITES
+		Widget middleChatBackground = chatboxBackgroundParent.getDynamicChildren()[1];
+		if (widgetWriter.setOriginalWidth(WidgetWriter.Site.CHATBOX_CHANGED, middleChatBackground, getLayoutPlan().getChatMiddleWidth()))
+		{
+			revalidationBatch.markDirty(middleChatBackground);
+		}
 	}
 
 	private void setupWideChatboxWidget()
 	{
-		if (config.isWideChatbox())
+		if (configSnapshot.isWideChatbox())
 		{
 			setupChatboxSprites();
 			createNewChatboxSprites();
 		}
 	}
-
-	private boolean isChatboxOpen()
-	{
-		Widget chatboxFrame = client.getWidget(ComponentID.CHATBOX_FRAME);
-		if (chatboxFrame == null)
-		{
-			return false;
-		}
-
-		if (cutSceneActive)
-		{
-			Widget chatboxTransparentBackground = client.getWidget(ComponentID.CHATBOX_TRANSPARENT_BACKGROUND);
-			return chatboxTransparentBackground != null
-				&& chatboxTransparentBackground.getDynamicChildren().length > 0
-				&& !chatboxFrame.isHidden();
-		}
-		return !chatboxFrame.isHidden();
-	}
 }
\ No newline at end of file
@@ -0,0 +1,133 @@
+package com.lapask;
+
+import net.runelite.api.Client;
+import net.runelite.api.widgets.Widget;
+
+// State that every fix routine reads: whether the chatbox is open, the canvas size and the key classic resizable
+// widgets. Each value is computed at most once per client cycle; everything is dropped when the game cycle
+// advances or invalidate() is called (every BeforeRender, and on the events that can change these values mid-cycle).
+// Only values the plugin doesn't write are cached, laid out sizes are always read live. The widgets themselves come
+// from the WidgetHandleRegistry, which keeps them across cycles.
+public class FrameContext
+{
+	private static final int CHATBOX_OPEN = 1;
+	private static final int CANVAS_WIDTH = 1 << 1;
+	private static final int CANVAS_HEIGHT = 1 << 2;
+
+	private final Client client;
+	private final WidgetHandleRegistry widgetHandles;
+	private int cycle = -1;
+	// Bitmask of the values computed during the current cycle
+	private int computed = 0;
+	private boolean cutSceneActive = false;
+
+	private boolean chatboxOpen;
+	private int canvasWidth;
+	private int canvasHeight;
+
+	public FrameContext(Client client, WidgetHandleRegistry widgetHandles)
+	{
+		this.client = client;
+		this.widgetHandles = widgetHandles;
+	}
+
+	public void invalidate()
+	{
+		computed = 0;
+	}
+
+	// The chatbox is only considered open during a cutscene if its transparent background has been built
+	public void setCutSceneActive(boolean cutSceneActive)
+	{
+		if (this.cutSceneActive != cutSceneActive)
+		{
+			this.cutSceneActive = cutSceneActive;
+			computed &= ~CHATBOX_OPEN;
+		}
+	}
+
+	public boolean isChatboxOpen()
+	{
+		if (needs(CHATBOX_OPEN))
+		{
+			chatboxOpen = computeChatboxOpen();
+		}
+		return chatboxOpen;
+	}
+
+	public int getCanvasWidth()
+	{
+		if (needs(CANVAS_WIDTH))
+		{
+			canvasWidth = client.getCanvasWidth();
+		}
+		return canvasWidth;
+	}
+
+	public int getCanvasHeight()
+	{
+		if (needs(CANVAS_HEIGHT))
+		{
+			canvasHeight = client.getCanvasHeight();
+		}
+		return canvasHeight;
+	}
+
+	// 161.0, the classic resizable root
+	public Widget getCanvas()
+	{
+		return widgetHandles.get(WidgetHandle.CANVAS);
+	}
+
+	// 161.91, the 3d render viewport
+	public Widget getRenderViewport()
+	{
+		return widgetHandles.get(WidgetHandle.RENDER_VIEWPORT);
+	}
+
+	// 161.92, the click window that minigame overlays are nested into
+	public Widget getClickWindow()
+	{
+		return widgetHandles.get(WidgetHandle.CLICK_WINDOW);
+	}
+
+	public Widget getOldSchoolBox()
+	{
+		return widgetHandles.get(WidgetHandle.OLD_SCHOOL_BOX);
+	}
+
+	private boolean computeChatboxOpen()
+	{
+		Widget chatboxFrame = widgetHandles.get(WidgetHandle.CHATBOX_FRAME);
+		if (chatboxFrame == null)
+		{
+			return false;
+		}
+
+		if (cutSceneActive)
+		{
+			Widget chatboxTransparentBackground = widgetHandles.get(WidgetHandle.CHATBOX_TRANSPARENT_BACKGROUND);
+			return chatboxTransparentBackground != null
+				&& chatboxTransparentBackground.getDynamicChildren().length > 0
+				&& !chatboxFrame.isHidden();
+		}
+		return !chatboxFrame.isHidden();
+	}
+
+	// Returns true if the value still has to be computed this cycle and marks it as computed
+	private boolean needs(int value)
+	{
+		int gameCycle = client.getGameCycle();
+		if (gameCycle != cycle)
+		{
+			cycle = gameCycle;
+			invalidate();
+		}
+		if ((computed & value) != 0)
+		{
+			return false;
+		}
+		computed |= value;
+		return true;
+	}
+}
@@ -0,0 +1,11 @@
+package com.lapask;
+
+// Game client layout as selected in the ingame display settings.
+// UNKNOWN covers every state where the layout cannot be determined yet (logged out, loading, widgets not drawn).
+public enum GameClientLayout
+{
+	UNKNOWN,
+	FIXED,
+	CLASSIC_RESIZABLE,
+	MODERN_RESIZABLE
+}
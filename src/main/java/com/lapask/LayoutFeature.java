@@ -0,0 +1,73 @@
+package com.lapask;
+
+import java.util.EnumSet;
+
+// Independent pieces of the fixed-mode layout. A config change only reverts and re-applies the features its key affects,
+// see forConfigKey() and FixedResizableHybridPlugin.applyFeatures(). Widget state is saved in the WidgetStateLedger
+// under the feature that changed it (bit()), so a feature can be reverted on its own.
+public enum LayoutFeature
+{
+	MINIMAP_FRAME,
+	ORBS,
+	INVENTORY_FRAME,
+	RENDER_VIEWPORT,
+	WIDE_CHAT,
+	CHAT_BUTTONS,
+	GAP_OVERLAY;
+
+	// Features that own saved widget state or created widgets and are reverted before they're re-applied, see
+	// FixedResizableHybridPlugin.revertFeatureUnits(). The others are simply re-applied on top of the current layout.
+	private static final EnumSet<LayoutFeature> REVERTIBLE = EnumSet.of(MINIMAP_FRAME, INVENTORY_FRAME, WIDE_CHAT);
+
+	// Owner bit for WidgetStateLedger records saved by this feature
+	public int bit()
+	{
+		return 1 << ordinal();
+	}
+
+	// Maps a fixedresizablehybrid config key to the features that have to be re-applied when it changes.
+	// Unknown keys map to every feature.
+	public static EnumSet<LayoutFeature> forConfigKey(String key)
+	{
+		switch (key)
+		{
+			case "gapColor":
+			case "useGapBorders":
+			case "gapBorderColor":
+				return EnumSet.of(GAP_OVERLAY);
+			case "orbsPosition":
+				return EnumSet.of(ORBS);
+			case "centerChatboxButtons":
+				return EnumSet.of(CHAT_BUTTONS);
+			case "chatboxViewportCentering":
+				return EnumSet.of(RENDER_VIEWPORT);
+			case "isWideChatbox":
+				return EnumSet.of(WIDE_CHAT, RENDER_VIEWPORT, CHAT_BUTTONS);
+			case "resizeSettleDelay":
+				// Only read by the next window resize
+				return EnumSet.noneOf(LayoutFeature.class);
+			default:
+				return EnumSet.allOf(LayoutFeature.class);
+		}
+	}
+
+	// Interface styles and resource packs only change the sprites the frames and the wide chatbox are built from
+	public static EnumSet<LayoutFeature> forSpriteChange()
+	{
+		return EnumSet.of(MINIMAP_FRAME, INVENTORY_FRAME, WIDE_CHAT);
+	}
+
+	// Owner mask of the features in the set that are reverted before being re-applied
+	public static int revertibleOwners(EnumSet<LayoutFeature> features)
+	{
+		int owners = 0;
+		for (LayoutFeature feature : features)
+		{
+			if (REVERTIBLE.contains(feature))
+			{
+				owners |= feature.bit();
+			}
+		}
+		return owners;
+	}
+}
@@ -0,0 +1,235 @@
+package com.lapask;
+
+import net.runelite.api.Client;
+import net.runelite.api.widgets.Widget;
+
+// Runs compiled LayoutPrograms against the live widgets in one linear pass without allocating.
+// Saves go to the WidgetStateLedger and revalidations to the RevalidationBatch, so reverting a program is the
+// ledger's restore() for modified widgets plus revert() for the sprites the program created.
+public class LayoutInterpreter
+{
+	private final Client client;
+	private final WidgetHandleRegistry widgetHandles;
+	private final WidgetStateLedger ledger;
+	private final RevalidationBatch revalidationBatch;
+
+	private long lastApplyNanos = 0;
+	private int lastOps = 0;
+
+	public LayoutInterpreter(Client client, WidgetHandleRegistry widgetHandles, WidgetStateLedger ledger,
+		RevalidationBatch revalidationBatch)
+	{
+		this.client = client;
+		this.widgetHandles = widgetHandles;
+		this.ledger = ledger;
+		this.revalidationBatch = revalidationBatch;
+	}
+
+	// Applies the program, saving widgets under the given ledger owner, and returns a mask of the sections that ran to
+	// completion (bit n = section n).
+	public int apply(LayoutProgram program, int owner)
+	{
+		long start = System.nanoTime();
+		int[] code = program.getCode();
+		int applied = 0;
+		int section = -1;
+		int sectionEnd = 0;
+		int blockEnd = 0;
+		int ops = 0;
+		Widget widget = null;
+		int pc = 0;
+		while (pc < code.length)
+		{
+			int op = code[pc];
+			ops++;
+			switch (op)
+			{
+				case LayoutProgram.OP_SECTION:
+					section++;
+					sectionEnd = pc + 2 + code[pc + 1];
+					applied |= 1 << section;
+					pc += 2;
+					break;
+				case LayoutProgram.OP_REQUIRE:
+					if (widgetHandles.get(WidgetHandle.VALUES[code[pc + 1]]) == null)
+					{
+						applied &= ~(1 << section);
+						pc = sectionEnd;
+						break;
+					}
+					pc += 2;
+					break;
+				case LayoutProgram.OP_SELECT:
+				case LayoutProgram.OP_SELECT_COMPONENT:
+					widget = op == LayoutProgram.OP_SELECT
+						? widgetHandles.get(WidgetHandle.VALUES[code[pc + 1]])
+						: client.getWidget(code[pc + 1]);
+					blockEnd = pc + 3 + code[pc + 2];
+					pc = widget == null ? blockEnd : pc + 3;
+					break;
+				case LayoutProgram.OP_GUARD:
+					if (get(widget, code[pc + 1]) != code[pc + 2])
+					{
+						pc = blockEnd;
+						break;
+					}
+					pc += 3;
+					break;
+				case LayoutProgram.OP_SAVE:
+					ledger.save(widget, code[pc + 1] == 1, owner);
+					pc += 2;
+					break;
+				case LayoutProgram.OP_SET:
+					set(widget, code[pc + 1], code[pc + 2]);
+					pc += 3;
+					break;
+				case LayoutProgram.OP_DIRTY:
+					revalidationBatch.markDirty(widget);
+					pc += 1;
+					break;
+				case LayoutProgram.OP_CREATE:
+					create(code, pc);
+					pc += 1 + LayoutProgram.OPERANDS[op];
+					break;
+				default:
+					throw new IllegalStateException("Bad opcode " + op + " at " + pc + " in " + program.getName());
+			}
+		}
+		lastOps = ops;
+		lastApplyNanos = System.nanoTime() - start;
+		return applied;
+	}
+
+	// Deletes the children the program's CREATE ops added, once per parent
+	public void revert(LayoutProgram program)
+	{
+		int[] code = program.getCode();
+		long clearedParents = 0;
+		int pc = 0;
+		while (pc < code.length)
+		{
+			int op = code[pc];
+			if (op == LayoutProgram.OP_CREATE)
+			{
+				int parentOrdinal = code[pc + 1];
+				if ((clearedParents & 1L << parentOrdinal) == 0)
+				{
+					clearedParents |= 1L << parentOrdinal;
+					Widget parent = widgetHandles.get(WidgetHandle.VALUES[parentOrdinal]);
+					if (parent != null)
+					{
+						parent.deleteAllChildren();
+					}
+				}
+			}
+			pc += 1 + LayoutProgram.OPERANDS[op];
+		}
+	}
+
+	public long getLastApplyNanos()
+	{
+		return lastApplyNanos;
+	}
+
+	public int getLastOps()
+	{
+		return lastOps;
+	}
+
+	private void create(int[] code, int pc)
+	{
+		Widget parent = widgetHandles.get(WidgetHandle.VALUES[code[pc + 1]]);
+		if (parent == null)
+		{
+			return;
+		}
+		Widget sprite = parent.createChild(code[pc + 2]);
+		sprite.setSpriteId(code[pc + 3]);
+		sprite.setOriginalX(code[pc + 4]);
+		sprite.setOriginalY(code[pc + 5]);
+		sprite.setOriginalWidth(code[pc + 6]);
+		sprite.setOriginalHeight(code[pc + 7]);
+		sprite.setXPositionMode(code[pc + 8]);
+		sprite.setYPositionMode(code[pc + 9]);
+		sprite.setWidthMode(code[pc + 10]);
+		sprite.setHeightMode(code[pc + 11]);
+		int flags = code[pc + 12];
+		if ((flags & LayoutProgram.CREATE_NO_CLICK_THROUGH) != 0)
+		{
+			sprite.setNoClickThrough(true);
+		}
+		if ((flags & LayoutProgram.CREATE_SPRITE_TILING) != 0)
+		{
+			sprite.setSpriteTiling(true);
+		}
+		revalidationBatch.markDirty(parent);
+	}
+
+	private static int get(Widget widget, int field)
+	{
+		switch (field)
+		{
+			case LayoutProgram.SPRITE_ID:
+				return widget.getSpriteId();
+			case LayoutProgram.X:
+				return widget.getOriginalX();
+			case LayoutProgram.Y:
+				return widget.getOriginalY();
+			case LayoutProgram.WIDTH:
+				return widget.getOriginalWidth();
+			case LayoutProgram.HEIGHT:
+				return widget.getOriginalHeight();
+			case LayoutProgram.X_MODE:
+				return widget.getXPositionMode();
+			case LayoutProgram.Y_MODE:
+				return widget.getYPositionMode();
+			case LayoutProgram.WIDTH_MODE:
+				return widget.getWidthMode();
+			case LayoutProgram.HEIGHT_MODE:
+				return widget.getHeightMode();
+			case LayoutProgram.HIDDEN:
+				return widget.isSelfHidden() ? 1 : 0;
+			default:
+				throw new IllegalStateException("Bad field " + field);
+		}
+	}
+
+	private static void set(Widget widget, int field, int value)
+	{
+		switch (field)
+		{
+			case LayoutProgram.SPRITE_ID:
+				widget.setSpriteId(value);
+				break;
+			case LayoutProgram.X:
+				widget.setOriginalX(value);
+				break;
+			case LayoutProgram.Y:
+				widget.setOriginalY(value);
+				break;
+			case LayoutProgram.WIDTH:
+				widget.setOriginalWidth(value);
+				break;
+			case LayoutProgram.HEIGHT:
+				widget.setOriginalHeight(value);
+				break;
+			case LayoutProgram.X_MODE:
+				widget.setXPositionMode(value);
+				break;
+			case LayoutProgram.Y_MODE:
+				widget.setYPositionMode(value);
+				break;
+			case LayoutProgram.WIDTH_MODE:
+				widget.setWidthMode(value);
+				break;
+			case LayoutProgram.HEIGHT_MODE:
+				widget.setHeightMode(value);
+				break;
+			case LayoutProgram.HIDDEN:
+				widget.setHidden(value == 1);
+				break;
+			default:
+				throw new IllegalStateException("Bad field " + field);
+		}
+	}
+}
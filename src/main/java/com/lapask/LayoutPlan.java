@@ -0,0 +1,256 @@
+package com.lapask;
+
+import com.lapask.config.OrbsPosition;
+import java.nio.ByteBuffer;
+
+// The layout numbers that only depend on the canvas size and the UI mode (chat open, wide chat, viewport centering,
+// transparent chatbox, cutscene, chat button centering and orb position). Plans are immutable and memoized by
+// LayoutPlanCache, so returning to a state that was already seen reuses its plan instead of recomputing it.
+public final class LayoutPlan
+{
+	private static final int DEFAULT_CHAT_WIDTH = 519;
+
+	private final long key;
+	private final int wideChatWidth;
+	private final int chatMiddleWidth;
+	private final int viewportBaseHeight;
+	private final boolean viewportCentered;
+	private final int oldSchoolBoxParentExtraHeight;
+	private final int oldSchoolBoxHeight;
+	private final int runOrbX;
+	private final int runOrbY;
+	private final int specOrbX;
+	private final int specOrbY;
+	// Chat button x/width by static child index, filled in the first time the buttons are positioned for this plan
+	private final int[] chatButtonX;
+	private final int[] chatButtonWidth;
+
+	LayoutPlan(long key, int canvasWidth, boolean chatOpen, boolean viewportCentering, boolean transparentChatbox,
+		OrbsPosition orbsPosition)
+	{
+		this.key = key;
+		this.wideChatWidth = wideChatWidth(canvasWidth);
+		this.chatMiddleWidth = chatMiddleWidth(wideChatWidth);
+
+		int wideChatViewportOffset = transparentChatbox ? 0 : 23;
+		this.viewportBaseHeight = chatOpen && viewportCentering ? 165 : wideChatViewportOffset;
+		this.viewportCentered = chatOpen && viewportCentering && !transparentChatbox;
+		this.oldSchoolBoxParentExtraHeight = viewportCentered ? 0 : wideChatViewportOffset;
+		this.oldSchoolBoxHeight = viewportCentered ? 0 : 165;
+
+		if (orbsPosition == OrbsPosition.MORE_CLEARANCE)
+		{
+			runOrbX = 2;
+			runOrbY = 97;
+			specOrbX = 23;
+			specOrbY = 124;
+		}
+		else
+		{
+			runOrbX = 10;
+			runOrbY = 97;
+			specOrbX = 32;
+			specOrbY = 122;
+		}
+		this.chatButtonX = null;
+		this.chatButtonWidth = null;
+	}
+
+	private LayoutPlan(LayoutPlan plan, int[] chatButtonX, int[] chatButtonWidth)
+	{
+		this(plan.key, plan.wideChatWidth, plan.chatMiddleWidth, plan.viewportBaseHeight, plan.viewportCentered,
+			plan.oldSchoolBoxParentExtraHeight, plan.oldSchoolBoxHeight, plan.runOrbX, plan.runOrbY, plan.specOrbX,
+			plan.specOrbY, chatButtonX, chatButtonWidth);
+	}
+
+	private LayoutPlan(long key, int wideChatWidth, int chatMiddleWidth, int viewportBaseHeight, boolean viewportCentered,
+		int oldSchoolBoxParentExtraHeight, int oldSchoolBoxHeight, int runOrbX, int runOrbY, int specOrbX, int specOrbY,
+		int[] chatButtonX, int[] chatButtonWidth)
+	{
+		this.key = key;
+		this.wideChatWidth = wideChatWidth;
+		this.chatMiddleWidth = chatMiddleWidth;
+		this.viewportBaseHeight = viewportBaseHeight;
+		this.viewportCentered = viewportCentered;
+		this.oldSchoolBoxParentExtraHeight = oldSchoolBoxParentExtraHeight;
+		this.oldSchoolBoxHeight = oldSchoolBoxHeight;
+		this.runOrbX = runOrbX;
+		this.runOrbY = runOrbY;
+		this.specOrbX = specOrbX;
+		this.specOrbY = specOrbY;
+		this.chatButtonX = chatButtonX;
+		this.chatButtonWidth = chatButtonWidth;
+	}
+
+	// Returns this plan without the chat button layout, which is derived from the current session's widget originals
+	// and has to be rebuilt from them (see positionChatboxButtons())
+	LayoutPlan withoutChatButtons()
+	{
+		return chatButtonX == null ? this : new LayoutPlan(this, null, null);
+	}
+
+	// Serialized size in bytes, see writeTo()
+	int getSerializedSize()
+	{
+		return Long.BYTES + 10 * Integer.BYTES;
+	}
+
+	// Used by WarmStartCache. The chat button layout isn't written, see withoutChatButtons().
+	void writeTo(ByteBuffer buffer)
+	{
+		buffer.putLong(key);
+		buffer.putInt(wideChatWidth);
+		buffer.putInt(chatMiddleWidth);
+		buffer.putInt(viewportBaseHeight);
+		buffer.putInt(viewportCentered ? 1 : 0);
+		buffer.putInt(oldSchoolBoxParentExtraHeight);
+		buffer.putInt(oldSchoolBoxHeight);
+		buffer.putInt(runOrbX);
+		buffer.putInt(runOrbY);
+		buffer.putInt(specOrbX);
+		buffer.putInt(specOrbY);
+	}
+
+	static LayoutPlan readFrom(ByteBuffer buffer)
+	{
+		long key = buffer.getLong();
+		int wideChatWidth = buffer.getInt();
+		int chatMiddleWidth = buffer.getInt();
+		int viewportBaseHeight = buffer.getInt();
+		boolean viewportCentered = buffer.getInt() == 1;
+		int oldSchoolBoxParentExtraHeight = buffer.getInt();
+		int oldSchoolBoxHeight = buffer.getInt();
+		int runOrbX = buffer.getInt();
+		int runOrbY = buffer.getInt();
+		int specOrbX = buffer.getInt();
+		int specOrbY = buffer.getInt();
+		return new LayoutPlan(key, wideChatWidth, chatMiddleWidth, viewportBaseHeight, viewportCentered,
+			oldSchoolBoxParentExtraHeight, oldSchoolBoxHeight, runOrbX, runOrbY, specOrbX, specOrbY, null, null);
+	}
+
+	// Every field of a plan, including the chat width its chat button layout uses, is derived from these inputs
+	static long key(int canvasWidth, int canvasHeight, boolean chatOpen, boolean wideChatbox, boolean viewportCentering,
+		boolean transparentChatbox, boolean cutSceneActive, boolean centerChatboxButtons, OrbsPosition orbsPosition)
+	{
+		int flags = (chatOpen ? 1 : 0)
+			| (wideChatbox ? 1 << 1 : 0)
+			| (viewportCentering ? 1 << 2 : 0)
+			| (transparentChatbox ? 1 << 3 : 0)
+			| (cutSceneActive ? 1 << 4 : 0)
+			| (centerChatboxButtons ? 1 << 5 : 0);
+		return ((long) (canvasWidth & 0xFFFF) << 48)
+			| ((long) (canvasHeight & 0xFFFF) << 32)
+			| ((long) flags << 8)
+			| orbsPosition.ordinal();
+	}
+
+	// The chat widths on their own, for the provisional resize layout which runs every drag frame without a plan
+	static int wideChatWidth(int canvasWidth)
+	{
+		return canvasWidth - 249;
+	}
+
+	static int chatMiddleWidth(int wideChatWidth)
+	{
+		return (int) Math.ceil((579.0 / 519.0) * wideChatWidth - 60);
+	}
+
+	// Returns a copy of this plan with the chat button layout for the given button originals. The chat buttons parent
+	// is stretched to the wide chat width (see widenChat()), so the layout only depends on the keyed canvas width.
+	LayoutPlan withChatButtons(boolean centerChatboxButtons, int[] originalX, int[] originalWidth)
+	{
+		int chatWidth = wideChatWidth;
+		int[] buttonX = new int[originalX.length];
+		int[] buttonWidth = new int[originalX.length];
+		for (int i = 0; i < originalX.length; i++)
+		{
+			if (centerChatboxButtons)
+			{
+				// Center align buttons with no stretching
+				buttonX[i] = ((chatWidth - DEFAULT_CHAT_WIDTH) / 2) + originalX[i];
+				buttonWidth[i] = originalWidth[i];
+			}
+			else
+			{
+				// Stretch chatbox buttons
+				buttonX[i] = chatWidth * originalX[i] / DEFAULT_CHAT_WIDTH;
+				buttonWidth[i] = chatWidth * originalWidth[i] / DEFAULT_CHAT_WIDTH;
+			}
+		}
+		return new LayoutPlan(this, buttonX, buttonWidth);
+	}
+
+	long getKey()
+	{
+		return key;
+	}
+
+	// Width of the wide chatbox (canvas minus the minimap/inventory column)
+	public int getWideChatWidth()
+	{
+		return wideChatWidth;
+	}
+
+	// Width of the stretched middle slice of the wide chatbox background
+	public int getChatMiddleWidth()
+	{
+		return chatMiddleWidth;
+	}
+
+	// Render viewport height above the chatbox parent's y, see chatboxChanged()
+	public int getViewportBaseHeight()
+	{
+		return viewportBaseHeight;
+	}
+
+	// True if the viewport is centered above the open chatbox, so the old school box matches the viewport height
+	public boolean isViewportCentered()
+	{
+		return viewportCentered;
+	}
+
+	public int getOldSchoolBoxParentExtraHeight()
+	{
+		return oldSchoolBoxParentExtraHeight;
+	}
+
+	public int getOldSchoolBoxHeight()
+	{
+		return oldSchoolBoxHeight;
+	}
+
+	public int getRunOrbX()
+	{
+		return runOrbX;
+	}
+
+	public int getRunOrbY()
+	{
+		return runOrbY;
+	}
+
+	public int getSpecOrbX()
+	{
+		return specOrbX;
+	}
+
+	public int getSpecOrbY()
+	{
+		return specOrbY;
+	}
+
+	public boolean hasChatButtons(int buttonCount)
+	{
+		return chatButtonX != null && chatButtonX.length == buttonCount;
+	}
+
+	public int getChatButtonX(int index)
+	{
+		return chatButtonX[index];
+	}
+
+	public int getChatButtonWidth(int index)
+	{
+		return chatButtonWidth[index];
+	}
+}
@@ -0,0 +1,69 @@
+package com.lapask;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Small LRU of layout plans keyed by LayoutPlan.key(), only touched on the client thread. Plans are built by the
+// LayoutPlanner, or by the plugin itself when one is needed before the planner delivered it. Cleared whenever the
+// plugin resets its widgets, since the chat button layout in a plan is derived from the saved widget originals.
+public class LayoutPlanCache
+{
+	private static final int MAX_PLANS = 16;
+
+	private final Map<Long, LayoutPlan> plans = new LinkedHashMap<Long, LayoutPlan>(MAX_PLANS, 0.75f, true)
+	{
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, LayoutPlan> eldest)
+		{
+			return size() > MAX_PLANS;
+		}
+	};
+	private int hits = 0;
+	private int misses = 0;
+
+	// Returns the plan for a LayoutPlan.key(), or null if it hasn't been built yet
+	public LayoutPlan get(long key)
+	{
+		LayoutPlan plan = plans.get(key);
+		if (plan != null)
+		{
+			hits++;
+			return plan;
+		}
+		misses++;
+		return null;
+	}
+
+	public boolean contains(long key)
+	{
+		return plans.containsKey(key);
+	}
+
+	// Adds a plan, or replaces it with a copy that has more of its layout filled in
+	public void put(LayoutPlan plan)
+	{
+		plans.put(plan.getKey(), plan);
+	}
+
+	public int size()
+	{
+		return plans.size();
+	}
+
+	public int getHits()
+	{
+		return hits;
+	}
+
+	public int getMisses()
+	{
+		return misses;
+	}
+
+	public void clear()
+	{
+		plans.clear();
+		hits = 0;
+		misses = 0;
+	}
+}
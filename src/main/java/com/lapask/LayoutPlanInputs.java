@@ -0,0 +1,54 @@
+package com.lapask;
+
+// Immutable copy of everything a LayoutPlan is built from. Taken on the client thread, so a plan can be built on the
+// layout worker without reading the client or the widgets.
+public final class LayoutPlanInputs
+{
+	private final int canvasWidth;
+	private final int canvasHeight;
+	private final boolean chatOpen;
+	private final FixedResizableHybridConfigSnapshot config;
+	private final boolean transparentChatbox;
+	private final boolean cutSceneActive;
+	// Saved chat button originals by static child index, null until the buttons have been positioned once
+	private final int[] chatButtonOriginalX;
+	private final int[] chatButtonOriginalWidth;
+
+	public LayoutPlanInputs(int canvasWidth, int canvasHeight, boolean chatOpen, FixedResizableHybridConfigSnapshot config,
+		boolean transparentChatbox, boolean cutSceneActive, int[] chatButtonOriginalX, int[] chatButtonOriginalWidth)
+	{
+		this.canvasWidth = canvasWidth;
+		this.canvasHeight = canvasHeight;
+		this.chatOpen = chatOpen;
+		this.config = config;
+		this.transparentChatbox = transparentChatbox;
+		this.cutSceneActive = cutSceneActive;
+		this.chatButtonOriginalX = chatButtonOriginalX == null ? null : chatButtonOriginalX.clone();
+		this.chatButtonOriginalWidth = chatButtonOriginalWidth == null ? null : chatButtonOriginalWidth.clone();
+	}
+
+	public long getKey()
+	{
+		return LayoutPlan.key(canvasWidth, canvasHeight, chatOpen, config.isWideChatbox(), config.chatboxViewportCentering(),
+			transparentChatbox, cutSceneActive, config.centerChatboxButtons(), config.orbsPosition());
+	}
+
+	// The same inputs with the chatbox toggled, planned ahead so opening/closing the chat is a cache hit
+	public LayoutPlanInputs withChatOpen(boolean chatOpen)
+	{
+		return new LayoutPlanInputs(canvasWidth, canvasHeight, chatOpen, config, transparentChatbox, cutSceneActive,
+			chatButtonOriginalX, chatButtonOriginalWidth);
+	}
+
+	// Pure arithmetic, safe to run on any thread
+	public LayoutPlan build()
+	{
+		LayoutPlan plan = new LayoutPlan(getKey(), canvasWidth, chatOpen, config.chatboxViewportCentering(),
+			transparentChatbox, config.orbsPosition());
+		if (config.isWideChatbox() && chatButtonOriginalX != null)
+		{
+			plan = plan.withChatButtons(config.centerChatboxButtons(), chatButtonOriginalX, chatButtonOriginalWidth);
+		}
+		return plan;
+	}
+}
@@ -0,0 +1,89 @@
+package com.lapask;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.callback.ClientThread;
+
+// Prefetches LayoutPlans on the background worker and hands them back to the client thread. The plan the current frame
+// needs is built inline on the client thread, the worker only builds plans for states the client is likely to enter next.
+// Every request bumps the generation, a plan that lands after a newer request (or after cancel()) is dropped, so only
+// the plan for the latest inputs is ever applied. request() and cancel() are only called on the client thread.
+@Slf4j
+public class LayoutPlanner
+{
+	private final Executor worker;
+	private final ClientThread clientThread;
+
+	private int generation = 0;
+	private int requested = 0;
+	private int delivered = 0;
+	private int dropped = 0;
+
+	public LayoutPlanner(Executor worker, ClientThread clientThread)
+	{
+		this.worker = worker;
+		this.clientThread = clientThread;
+	}
+
+	// Builds the plan for inputs and passes it to onReady on the client thread.
+	// Returns false if the worker didn't take the request, in which case onReady is never called.
+	public boolean request(LayoutPlanInputs inputs, Consumer<LayoutPlan> onReady)
+	{
+		int requestGeneration = ++generation;
+		requested++;
+		try
+		{
+			worker.execute(() ->
+			{
+				LayoutPlan plan = inputs.build();
+				clientThread.invokeLater(() ->
+				{
+					if (requestGeneration != generation)
+					{
+						dropped++;
+						return;
+					}
+					delivered++;
+					onReady.accept(plan);
+				});
+			});
+			return true;
+		}
+		catch (RejectedExecutionException e)
+		{
+			// Worker is shut down or backed up, the plan is built inline when it's needed instead
+			log.debug("Layout plan request rejected", e);
+			return false;
+		}
+	}
+
+	// Drops every plan that is still being built
+	public void cancel()
+	{
+		generation++;
+	}
+
+	public int getRequested()
+	{
+		return requested;
+	}
+
+	public int getDelivered()
+	{
+		return delivered;
+	}
+
+	public int getDropped()
+	{
+		return dropped;
+	}
+
+	public void resetCounters()
+	{
+		requested = 0;
+		delivered = 0;
+		dropped = 0;
+	}
+}
@@ -0,0 +1,288 @@
+package com.lapask;
+
+import java.util.Arrays;
+
+// A layout spec compiled into a flat instruction array, run by LayoutInterpreter.
+// The program is a list of sections. Each section starts with its REQUIRE checks, followed by widget blocks
+// (SELECT, then GUARD/SAVE/SET ops and a closing DIRTY) and CREATE ops for added sprites.
+// A failed REQUIRE skips the rest of its section, a missing widget or failed GUARD skips the rest of its block.
+// Jumps are relative to the section/block header.
+public final class LayoutProgram
+{
+	// Opcodes, followed by their operands
+	static final int OP_SECTION = 0;          // bodyLength
+	static final int OP_REQUIRE = 1;          // handle ordinal
+	static final int OP_SELECT = 2;           // handle ordinal, bodyLength
+	static final int OP_SELECT_COMPONENT = 3; // component id, bodyLength
+	static final int OP_GUARD = 4;            // field, value
+	static final int OP_SAVE = 5;             // resetLast
+	static final int OP_SET = 6;              // field, value
+	static final int OP_DIRTY = 7;
+	static final int OP_CREATE = 8;           // parent handle ordinal, type, spriteId, x, y, width, height, xMode, yMode, widthMode, heightMode, flags
+
+	// Operand count per opcode
+	static final int[] OPERANDS = {1, 1, 2, 2, 2, 1, 2, 0, 12};
+
+	// Widget fields addressable by GUARD and SET
+	public static final int SPRITE_ID = 0;
+	public static final int X = 1;
+	public static final int Y = 2;
+	public static final int WIDTH = 3;
+	public static final int HEIGHT = 4;
+	public static final int X_MODE = 5;
+	public static final int Y_MODE = 6;
+	public static final int WIDTH_MODE = 7;
+	public static final int HEIGHT_MODE = 8;
+	public static final int HIDDEN = 9;
+
+	// OP_CREATE flags
+	static final int CREATE_NO_CLICK_THROUGH = 1;
+	static final int CREATE_SPRITE_TILING = 1 << 1;
+
+	private static final int TYPE_GRAPHIC = 5;
+
+	private final String name;
+	private final int[] code;
+	private final String[] sectionNames;
+
+	private LayoutProgram(String name, int[] code, String[] sectionNames)
+	{
+		this.name = name;
+		this.code = code;
+		this.sectionNames = sectionNames;
+	}
+
+	public String getName()
+	{
+		return name;
+	}
+
+	int[] getCode()
+	{
+		return code;
+	}
+
+	public int getLength()
+	{
+		return code.length;
+	}
+
+	public int getSectionCount()
+	{
+		return sectionNames.length;
+	}
+
+	public String getSectionName(int section)
+	{
+		return sectionNames[section];
+	}
+
+	public static Builder builder(String name)
+	{
+		return new Builder(name);
+	}
+
+	public static class Builder
+	{
+		private final String name;
+		private int[] code = new int[64];
+		private int size = 0;
+		private String[] sectionNames = new String[0];
+		// Index of the open section/block length operand, -1 when none is open
+		private int sectionLengthAt = -1;
+		private int blockLengthAt = -1;
+		private boolean blockWrites = false;
+
+		private Builder(String name)
+		{
+			this.name = name;
+		}
+
+		public Builder section(String sectionName)
+		{
+			closeSection();
+			sectionNames = Arrays.copyOf(sectionNames, sectionNames.length + 1);
+			sectionNames[sectionNames.length - 1] = sectionName;
+			emit(OP_SECTION);
+			sectionLengthAt = size;
+			emit(0);
+			return this;
+		}
+
+		// Skips the rest of the section if the handle doesn't resolve. Has to come before the section's first widget.
+		public Builder require(WidgetHandle handle)
+		{
+			checkSection();
+			if (blockLengthAt != -1)
+			{
+				throw new IllegalStateException("require() after a widget block in " + name);
+			}
+			emit(OP_REQUIRE);
+			emit(handle.ordinal());
+			return this;
+		}
+
+		public Builder widget(WidgetHandle handle)
+		{
+			openBlock(OP_SELECT, handle.ordinal());
+			return this;
+		}
+
+		// For components that are only touched by the layout spec and don't need a WidgetHandle
+		public Builder widget(int groupId, int childId)
+		{
+			openBlock(OP_SELECT_COMPONENT, groupId << 16 | childId);
+			return this;
+		}
+
+		// Skips the rest of the block unless the widget's field currently holds value
+		public Builder guard(int field, int value)
+		{
+			checkBlock();
+			emit(OP_GUARD);
+			emit(field);
+			emit(value);
+			return this;
+		}
+
+		public Builder save()
+		{
+			checkBlock();
+			emit(OP_SAVE);
+			emit(0);
+			return this;
+		}
+
+		// Saves the widget and always restores it last on reset, see WidgetStateLedger.save()
+		public Builder saveResetLast()
+		{
+			checkBlock();
+			emit(OP_SAVE);
+			emit(1);
+			return this;
+		}
+
+		public Builder set(int field, int value)
+		{
+			checkBlock();
+			emit(OP_SET);
+			emit(field);
+			emit(value);
+			blockWrites = true;
+			return this;
+		}
+
+		public Builder position(int x, int y)
+		{
+			return set(X, x).set(Y, y);
+		}
+
+		public Builder size(int width, int height)
+		{
+			return set(WIDTH, width).set(HEIGHT, height);
+		}
+
+		public Builder modes(int xMode, int yMode, int widthMode, int heightMode)
+		{
+			return set(X_MODE, xMode).set(Y_MODE, yMode).set(WIDTH_MODE, widthMode).set(HEIGHT_MODE, heightMode);
+		}
+
+		public Builder hide()
+		{
+			return set(HIDDEN, 1);
+		}
+
+		// Creates a graphic child under parent. Created children are removed by LayoutInterpreter.revert().
+		public Builder sprite(WidgetHandle parent, int spriteId, int x, int y, int width, int height,
+			int xMode, int yMode, int widthMode, int heightMode)
+		{
+			closeBlock();
+			checkSection();
+			if (parent.ordinal() >= Long.SIZE)
+			{
+				throw new IllegalArgumentException("Sprite parent " + parent + " can't be tracked by revert()");
+			}
+			emit(OP_CREATE);
+			emit(parent.ordinal());
+			emit(TYPE_GRAPHIC);
+			emit(spriteId);
+			emit(x);
+			emit(y);
+			emit(width);
+			emit(height);
+			emit(xMode);
+			emit(yMode);
+			emit(widthMode);
+			emit(heightMode);
+			emit(0);
+			return this;
+		}
+
+		public LayoutProgram build()
+		{
+			closeSection();
+			return new LayoutProgram(name, Arrays.copyOf(code, size), sectionNames);
+		}
+
+		private void openBlock(int op, int target)
+		{
+			closeBlock();
+			checkSection();
+			emit(op);
+			emit(target);
+			blockLengthAt = size;
+			emit(0);
+		}
+
+		private void closeBlock()
+		{
+			if (blockLengthAt == -1)
+			{
+				return;
+			}
+			if (blockWrites)
+			{
+				emit(OP_DIRTY);
+			}
+			code[blockLengthAt] = size - blockLengthAt - 1;
+			blockLengthAt = -1;
+			blockWrites = false;
+		}
+
+		private void closeSection()
+		{
+			closeBlock();
+			if (sectionLengthAt == -1)
+			{
+				return;
+			}
+			code[sectionLengthAt] = size - sectionLengthAt - 1;
+			sectionLengthAt = -1;
+		}
+
+		private void checkSection()
+		{
+			if (sectionLengthAt == -1)
+			{
+				throw new IllegalStateException("No open section in " + name);
+			}
+		}
+
+		private void checkBlock()
+		{
+			if (blockLengthAt == -1)
+			{
+				throw new IllegalStateException("No open widget block in " + name);
+			}
+		}
+
+		private void emit(int value)
+		{
+			if (size == code.length)
+			{
+				code = Arrays.copyOf(code, size * 2);
+			}
+			code[size++] = value;
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package com.lapask;
+
+// Widget repairs requested by client scripts and widget loads. Marked repairs run once before the next render, at
+// BeforeRender in declaration order, which is their dependency order (the minimap is laid out before its orbs and
+// sprites, the chatbox before the interface dimensions and backgrounds that depend on the viewport height).
+// Latency-critical repairs skip the queue and run as soon as they're marked.
+public enum RepairTask
+{
+	MINIMAP_WIDGETS(false),
+	ORBS(false),
+	MINIMAP_SPRITES(false),
+	INV_BACKGROUND(false),
+	CUTSCENE_INVENTORY(false),
+	CHATBOX(false),
+	INTERFACE_DIMENSIONS(false),
+	WIDGET_BACKGROUND(false),
+	STAT_GUIDE(false),
+	// TOB party orbs flicker if the click window isn't fixed in the same script
+	CLICK_WINDOW(true);
+
+	static final RepairTask[] VALUES = values();
+
+	private final boolean latencyCritical;
+
+	RepairTask(boolean latencyCritical)
+	{
+		this.latencyCritical = latencyCritical;
+	}
+
+	public boolean isLatencyCritical()
+	{
+		return latencyCritical;
+	}
+
+	int mask()
+	{
+		return 1 << ordinal();
+	}
+}
@@ -0,0 +1,53 @@
+package com.lapask;
+
+// Bitset of the repair tasks marked since the last drain. Marking is O(1) and marking a task twice is a no-op, so any
+// number of script firings and widget loads in a frame collapse into one run of each task, and draining doesn't
+// allocate. Also counts the script firings that fed each pass.
+public class RepairTaskQueue
+{
+	private int pending = 0;
+	private int firings = 0;
+	private int lastPassFirings = 0;
+
+	public void mark(RepairTask task)
+	{
+		pending |= task.mask();
+	}
+
+	// Counts a script firing that marked at least one task
+	public void recordFiring()
+	{
+		firings++;
+	}
+
+	public boolean isEmpty()
+	{
+		return pending == 0;
+	}
+
+	// Returns the marked tasks and starts a new pass
+	public int drain()
+	{
+		int tasks = pending;
+		pending = 0;
+		lastPassFirings = firings;
+		firings = 0;
+		return tasks;
+	}
+
+	public static boolean contains(int tasks, RepairTask task)
+	{
+		return (tasks & task.mask()) != 0;
+	}
+
+	public int getLastPassFirings()
+	{
+		return lastPassFirings;
+	}
+
+	public void clear()
+	{
+		pending = 0;
+		firings = 0;
+	}
+}
@@ -0,0 +1,128 @@
+package com.lapask;
+
+import net.runelite.api.widgets.Widget;
+
+// Collects widgets that need revalidating during a pass and revalidates them once when the outermost pass ends.
+// Revalidating a widget also lays out its children, so only the topmost dirty widgets are revalidated.
+// Outside of a pass markDirty() revalidates immediately, matching the old behavior.
+public class RevalidationBatch
+{
+	private int depth = 0;
+	private Widget[] dirty = new Widget[64];
+	private int[] dirtyIds = new int[64];
+	private int size = 0;
+
+	private int passMarked = 0;
+	private int passRevalidated = 0;
+	private int lastPassMarked = 0;
+	private int lastPassRevalidated = 0;
+
+	public void begin()
+	{
+		if (depth++ == 0)
+		{
+			passMarked = 0;
+			passRevalidated = 0;
+		}
+	}
+
+	// Ends the pass and, for the outermost pass, revalidates everything that was marked dirty.
+	// Returns true when the outermost pass ended.
+	public boolean end()
+	{
+		if (--depth > 0)
+		{
+			return false;
+		}
+		depth = 0;
+		flush();
+		lastPassMarked = passMarked;
+		lastPassRevalidated = passRevalidated;
+		return true;
+	}
+
+	public void markDirty(Widget widget)
+	{
+		if (widget == null)
+		{
+			return;
+		}
+		passMarked++;
+		if (depth == 0)
+		{
+			widget.revalidateScroll();
+			passRevalidated++;
+			return;
+		}
+		int widgetId = widget.getId();
+		if (indexOf(widgetId) != -1)
+		{
+			return;
+		}
+		if (size == dirty.length)
+		{
+			Widget[] grownDirty = new Widget[size * 2];
+			int[] grownIds = new int[size * 2];
+			System.arraycopy(dirty, 0, grownDirty, 0, size);
+			System.arraycopy(dirtyIds, 0, grownIds, 0, size);
+			dirty = grownDirty;
+			dirtyIds = grownIds;
+		}
+		dirty[size] = widget;
+		dirtyIds[size] = widgetId;
+		size++;
+	}
+
+	// Revalidates the topmost dirty widgets now. Called mid-pass before code that reads computed widget sizes.
+	public void flush()
+	{
+		for (int i = 0; i < size; i++)
+		{
+			Widget widget = dirty[i];
+			if (!hasDirtyAncestor(widget))
+			{
+				widget.revalidateScroll();
+				passRevalidated++;
+			}
+		}
+		for (int i = 0; i < size; i++)
+		{
+			dirty[i] = null;
+		}
+		size = 0;
+	}
+
+	public int getLastPassMarked()
+	{
+		return lastPassMarked;
+	}
+
+	public int getLastPassRevalidated()
+	{
+		return lastPassRevalidated;
+	}
+
+	private boolean hasDirtyAncestor(Widget widget)
+	{
+		for (Widget parent = widget.getParent(); parent != null; parent = parent.getParent())
+		{
+			if (indexOf(parent.getId()) != -1)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private int indexOf(int widgetId)
+	{
+		for (int i = 0; i < size; i++)
+		{
+			if (dirtyIds[i] == widgetId)
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,364 @@
+package com.lapask;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.Client;
+import net.runelite.api.SpritePixels;
+import net.runelite.client.callback.ClientThread;
+import net.runelite.client.util.ImageUtil;
+
+// Image work for the plugin's own sprites (wide chatbox slices, tinted gap border), run on the background worker.
+// The worker only works on plain pixel arrays. Reading a client sprite's pixels, creating SpritePixels and installing
+// the results (sprite overrides, widget sprite cache reset, swapping the overlay's image) happen on the client thread. As with LayoutPlanner, a result that lands after a newer request of the
+// same kind is dropped, as is a chatbox slicing that lands after cancel(). Requests are only made on the client thread.
+@Slf4j
+public class SpritePipeline
+{
+	public static final int CHATBOX_EDGE_WIDTH = 30;
+
+	private final Executor worker;
+	private final ClientThread clientThread;
+	private final Client client;
+	private final WarmStartCache warmStartCache;
+
+	// Bundled images, only decoded the first time something has to be sliced or tinted from them
+	private BufferedImage defaultChatboxImage;
+	private BufferedImage gapBorderImage;
+
+	private int chatboxGeneration = 0;
+	private int borderGeneration = 0;
+
+	// The last sliced chatbox sprites and the content hash of the image they were sliced from. Kept across plugin
+	// resets, so reinitializing with an unchanged chatbox sprite reuses the slices instead of rebuilding them.
+	private static final long DEFAULT_SOURCE_HASH = 0;
+	private long chatboxSourceHash = DEFAULT_SOURCE_HASH;
+	private ChatboxSprites chatboxSprites = null;
+	private int chatboxHits = 0;
+	private int chatboxWarmStarts = 0;
+	private int chatboxSlices = 0;
+
+	// Ready to install chatbox sprites, see FixedResizableHybridPlugin.installChatboxSprites()
+	public static final class ChatboxSprites
+	{
+		private final SpritePixels full;
+		private final SpritePixels left;
+		private final SpritePixels right;
+
+		private ChatboxSprites(SpritePixels full, SpritePixels left, SpritePixels right)
+		{
+			this.full = full;
+			this.left = left;
+			this.right = right;
+		}
+
+		public SpritePixels getFull()
+		{
+			return full;
+		}
+
+		public SpritePixels getLeft()
+		{
+			return left;
+		}
+
+		public SpritePixels getRight()
+		{
+			return right;
+		}
+	}
+
+	public SpritePipeline(Executor worker, ClientThread clientThread, Client client, WarmStartCache warmStartCache)
+	{
+		this.worker = worker;
+		this.clientThread = clientThread;
+		this.client = client;
+		this.warmStartCache = warmStartCache;
+	}
+
+	// Slices the chatbox background (the resource pack override if there is one, otherwise chatbox.png) into the full,
+	// left edge and right edge sprites and passes them to onReady on the client thread. If the source is unchanged since
+	// the last slicing, in this session or a previous one (WarmStartCache), onReady gets the sprites right away.
+	// If the worker doesn't take the request, the slicing runs inline.
+	public void requestChatboxSprites(SpritePixels overrideSprite, Consumer<ChatboxSprites> onReady)
+	{
+		int generation = ++chatboxGeneration;
+		long sourceHash = hashChatboxSource(overrideSprite);
+		if (chatboxSprites != null && sourceHash == chatboxSourceHash)
+		{
+			chatboxHits++;
+			onReady.accept(chatboxSprites);
+			return;
+		}
+		WarmStartCache.Pixels[] cachedPixels = warmStartCache.getChatboxPixels(sourceHash);
+		if (cachedPixels != null)
+		{
+			chatboxWarmStarts++;
+			chatboxSourceHash = sourceHash;
+			chatboxSprites = toChatboxSprites(cachedPixels);
+			onReady.accept(chatboxSprites);
+			return;
+		}
+		// The override belongs to the client, so its pixels are copied here and the worker only crops the copy
+		WarmStartCache.Pixels overridePixels = overrideSprite == null ? null
+			: new WarmStartCache.Pixels(overrideSprite.getWidth(), overrideSprite.getHeight(), overrideSprite.getPixels().clone());
+		boolean submitted = submit(() ->
+		{
+			WarmStartCache.Pixels[] slices = sliceChatbox(overridePixels);
+			if (slices == null)
+			{
+				return;
+			}
+			clientThread.invokeLater(() ->
+			{
+				if (generation == chatboxGeneration)
+				{
+					onReady.accept(cacheChatboxSprites(sourceHash, slices));
+				}
+			});
+		});
+		if (!submitted)
+		{
+			WarmStartCache.Pixels[] slices = sliceChatbox(overridePixels);
+			if (slices != null)
+			{
+				onReady.accept(cacheChatboxSprites(sourceHash, slices));
+			}
+		}
+	}
+
+	// Composites tint over border15px.png and passes the result to onReady on the client thread. Served from the
+	// WarmStartCache if the same tint was composited before, inline if the worker doesn't take the request.
+	// onFailed is called on the client thread instead if the border couldn't be tinted. A request is only dropped
+	// when a newer one supersedes it, layout resets (cancel()) don't touch it since the overlay outlives them.
+	public void requestTintedBorder(Color tint, Consumer<BufferedImage> onReady, Runnable onFailed)
+	{
+		int generation = ++borderGeneration;
+		int tintArgb = tint.getRGB();
+		WarmStartCache.Pixels cachedPixels = warmStartCache.getBorderPixels(tintArgb);
+		if (cachedPixels != null)
+		{
+			onReady.accept(toImage(cachedPixels));
+			return;
+		}
+		boolean submitted = submit(() ->
+		{
+			BufferedImage tinted;
+			try
+			{
+				tinted = tintBorder(getGapBorderImage(), tint);
+			}
+			catch (RuntimeException e)
+			{
+				log.warn("Unable to tint the gap border", e);
+				clientThread.invokeLater(onFailed);
+				return;
+			}
+			WarmStartCache.Pixels pixels = toPixels(tinted);
+			clientThread.invokeLater(() ->
+			{
+				if (generation == borderGeneration)
+				{
+					warmStartCache.putBorderPixels(tintArgb, pixels);
+					onReady.accept(tinted);
+				}
+			});
+		});
+		if (!submitted)
+		{
+			BufferedImage tinted;
+			try
+			{
+				tinted = tintBorder(getGapBorderImage(), tint);
+			}
+			catch (RuntimeException e)
+			{
+				log.warn("Unable to tint the gap border", e);
+				onFailed.run();
+				return;
+			}
+			warmStartCache.putBorderPixels(tintArgb, toPixels(tinted));
+			onReady.accept(tinted);
+		}
+	}
+
+	// Drops every chatbox slicing that is still being produced
+	public void cancel()
+	{
+		chatboxGeneration++;
+	}
+
+	public int getChatboxHits()
+	{
+		return chatboxHits;
+	}
+
+	public int getChatboxWarmStarts()
+	{
+		return chatboxWarmStarts;
+	}
+
+	public int getChatboxSlices()
+	{
+		return chatboxSlices;
+	}
+
+	// FNV-1a over the override's size and pixels. DEFAULT_SOURCE_HASH stands for the bundled chatbox.png.
+	static long hashChatboxSource(SpritePixels overrideSprite)
+	{
+		if (overrideSprite == null)
+		{
+			return DEFAULT_SOURCE_HASH;
+		}
+		long hash = 0xcbf29ce484222325L;
+		hash = (hash ^ overrideSprite.getWidth()) * 0x100000001b3L;
+		hash = (hash ^ overrideSprite.getHeight()) * 0x100000001b3L;
+		for (int pixel : overrideSprite.getPixels())
+		{
+			hash = (hash ^ pixel) * 0x100000001b3L;
+		}
+		return hash == DEFAULT_SOURCE_HASH ? 1 : hash;
+	}
+
+	// Creates the sprites from complete slices on the client thread and keeps them for the next request
+	private ChatboxSprites cacheChatboxSprites(long sourceHash, WarmStartCache.Pixels[] slices)
+	{
+		chatboxSourceHash = sourceHash;
+		chatboxSprites = toChatboxSprites(slices);
+		chatboxSlices++;
+		warmStartCache.putChatboxPixels(sourceHash, slices[0], slices[1], slices[2]);
+		return chatboxSprites;
+	}
+
+	private ChatboxSprites toChatboxSprites(WarmStartCache.Pixels[] slices)
+	{
+		return new ChatboxSprites(toSpritePixels(slices[0]), toSpritePixels(slices[1]), toSpritePixels(slices[2]));
+	}
+
+	// Crops the full, left edge and right edge slices out of the override's pixels, or chatbox.png if there is none.
+	// Returns null if the source is too narrow to have both edges.
+	private WarmStartCache.Pixels[] sliceChatbox(WarmStartCache.Pixels overridePixels)
+	{
+		WarmStartCache.Pixels source = overridePixels != null ? overridePixels : toPixels(getDefaultChatboxImage());
+		int width = source.getWidth();
+		if (width < CHATBOX_EDGE_WIDTH * 2)
+		{
+			log.warn("Chatbox sprite is too narrow to slice: {}x{}", width, source.getHeight());
+			return null;
+		}
+		// Override pixels are opaque RGB with 0 for transparent, chatbox.png's are ARGB
+		boolean argb = overridePixels == null;
+		return new WarmStartCache.Pixels[]{
+			crop(source, 0, width, argb),
+			crop(source, 0, CHATBOX_EDGE_WIDTH, argb),
+			crop(source, width - CHATBOX_EDGE_WIDTH, CHATBOX_EDGE_WIDTH, argb)
+		};
+	}
+
+	// Copies a full height column range into sprite pixels: opaque ARGB, with 0 for transparent since the client's
+	// sprite drawing skips 0 rather than checking the alpha. Matches ImageUtil.getImageSpritePixels().
+	private static WarmStartCache.Pixels crop(WarmStartCache.Pixels source, int x, int width, boolean argb)
+	{
+		int height = source.getHeight();
+		int[] from = source.getPixels();
+		int[] to = new int[width * height];
+		for (int row = 0; row < height; row++)
+		{
+			int offset = row * source.getWidth() + x;
+			for (int column = 0; column < width; column++)
+			{
+				int pixel = from[offset + column];
+				boolean transparent = argb ? (pixel & 0xFF000000) == 0 : pixel == 0;
+				to[row * width + column] = transparent ? 0 : pixel | 0xFF000000;
+			}
+		}
+		return new WarmStartCache.Pixels(width, height, to);
+	}
+
+	// The tint is overlaid only where the border's pixels are
+	private static BufferedImage tintBorder(Image border, Color tint)
+	{
+		int width = border.getWidth(null);
+		int height = border.getHeight(null);
+		BufferedImage tinted = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = tinted.createGraphics();
+		g.drawImage(border, 0, 0, null);
+		if (tint.getAlpha() > 0)
+		{
+			g.setComposite(AlphaComposite.SrcAtop);
+			g.setColor(tint);
+			g.fillRect(0, 0, width, height);
+		}
+		g.dispose();
+		return tinted;
+	}
+
+	private boolean submit(Runnable task)
+	{
+		try
+		{
+			worker.execute(() ->
+			{
+				try
+				{
+					task.run();
+				}
+				catch (RuntimeException e)
+				{
+					log.warn("Sprite pipeline task failed", e);
+				}
+			});
+			return true;
+		}
+		catch (RejectedExecutionException e)
+		{
+			log.debug("Sprite pipeline request rejected", e);
+			return false;
+		}
+	}
+
+	private synchronized BufferedImage getDefaultChatboxImage()
+	{
+		if (defaultChatboxImage == null)
+		{
+			defaultChatboxImage = ImageUtil.loadImageResource(FixedResizableHybridPlugin.class, "/chatbox.png");
+		}
+		return defaultChatboxImage;
+	}
+
+	// The untinted border15px.png, also drawn by the overlay until the tinted border is ready
+	public synchronized BufferedImage getGapBorderImage()
+	{
+		if (gapBorderImage == null)
+		{
+			gapBorderImage = ImageUtil.loadImageResource(FixedResizableHybridPlugin.class, "/border15px.png");
+		}
+		return gapBorderImage;
+	}
+
+	private SpritePixels toSpritePixels(WarmStartCache.Pixels pixels)
+	{
+		// The cached array is shared with the WarmStartCache, which never writes to it
+		return client.createSpritePixels(pixels.getPixels(), pixels.getWidth(), pixels.getHeight());
+	}
+
+	private static WarmStartCache.Pixels toPixels(BufferedImage image)
+	{
+		int width = image.getWidth();
+		int height = image.getHeight();
+		return new WarmStartCache.Pixels(width, height, image.getRGB(0, 0, width, height, null, 0, width));
+	}
+
+	private static BufferedImage toImage(WarmStartCache.Pixels pixels)
+	{
+		BufferedImage image = new BufferedImage(pixels.getWidth(), pixels.getHeight(), BufferedImage.TYPE_INT_ARGB);
+		image.setRGB(0, 0, pixels.getWidth(), pixels.getHeight(), pixels.getPixels(), 0, pixels.getWidth());
+		return image;
+	}
+}
@@ -0,0 +1,434 @@
+package com.lapask;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import lombok.extern.slf4j.Slf4j;
+
+// On-disk copy of the processed sprites (chatbox slices, tinted gap border) and the layout plans, so the next client
+// launch with the same plugin build and resource pack applies the layout without decoding or slicing any images.
+// Plans are kept without their chat button layout, which depends on the session's widget originals.
+// The file is read into a heap buffer and parsed on the background worker, then handed to the client thread with
+// install(). It isn't memory-mapped, since Windows keeps a mapped file locked and the next save() couldn't replace it.
+// Every other method is only called on the client thread. A file that fails the magic/version/CRC checks is ignored
+// and everything is recomputed, the next save() overwrites it.
+//
+// File layout (big endian):
+//   int MAGIC, long cache version (getCacheVersion())
+//   long chatbox source hash (SpritePipeline.hashChatboxSource()), int chatbox sprite count, per sprite: int width,
+//       int height, int[width * height] pixels (full, left, right)
+//   int border tint ARGB, int has border, int width, int height, int[width * height] pixels
+//   int plan count, per plan: LayoutPlan.writeTo()
+//   long CRC32 of everything above
+@Slf4j
+public class WarmStartCache
+{
+	private static final int MAGIC = 0x46524843; // "FRHC"
+	// Everything the cached data is derived from: the bundled images, and the classes holding the layout numbers, the
+	// sprite slicing and the file layout. A plugin build that changes any of them invalidates old files on its own.
+	private static final String[] VERSION_SOURCES = {
+		"/chatbox.png",
+		"/border15px.png",
+		"LayoutPlan.class",
+		"LayoutPlanInputs.class",
+		"SpritePipeline.class",
+		"WarmStartCache.class"
+	};
+	private static final int MAX_PLANS = 32;
+	// Guards against absurd sizes in a file that somehow passed the CRC check
+	private static final int MAX_SPRITE_PIXELS = 1 << 20;
+
+	private final File file;
+
+	private long chatboxSourceHash = 0;
+	private Pixels[] chatboxPixels = null;
+	private int borderTint = 0;
+	private Pixels borderPixels = null;
+	private final Map<Long, LayoutPlan> plans = new LinkedHashMap<Long, LayoutPlan>(MAX_PLANS, 0.75f, true)
+	{
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, LayoutPlan> eldest)
+		{
+			return size() > MAX_PLANS;
+		}
+	};
+	private boolean dirty = false;
+	// Computed on the background worker the first time the file is read or written, see getCacheVersion()
+	private long cacheVersion = 0;
+
+	// Raw ARGB pixels of one sprite
+	public static final class Pixels
+	{
+		private final int width;
+		private final int height;
+		private final int[] pixels;
+
+		public Pixels(int width, int height, int[] pixels)
+		{
+			if (pixels.length != width * height)
+			{
+				throw new IllegalArgumentException("Expected " + width * height + " pixels, got " + pixels.length);
+			}
+			this.width = width;
+			this.height = height;
+			this.pixels = pixels;
+		}
+
+		public int getWidth()
+		{
+			return width;
+		}
+
+		public int getHeight()
+		{
+			return height;
+		}
+
+		public int[] getPixels()
+		{
+			return pixels;
+		}
+	}
+
+	// Everything read from the file, built on the background worker
+	public static final class Contents
+	{
+		private final long chatboxSourceHash;
+		private final Pixels[] chatboxPixels;
+		private final int borderTint;
+		private final Pixels borderPixels;
+		private final List<LayoutPlan> plans;
+
+		private Contents(long chatboxSourceHash, Pixels[] chatboxPixels, int borderTint, Pixels borderPixels,
+			List<LayoutPlan> plans)
+		{
+			this.chatboxSourceHash = chatboxSourceHash;
+			this.chatboxPixels = chatboxPixels;
+			this.borderTint = borderTint;
+			this.borderPixels = borderPixels;
+			this.plans = plans;
+		}
+	}
+
+	public WarmStartCache(File directory)
+	{
+		this.file = new File(directory, "warm-start.bin");
+	}
+
+	// Reads and parses the file. Returns null if there is no usable file. Runs on the background worker.
+	public Contents load()
+	{
+		if (!file.isFile())
+		{
+			return null;
+		}
+		long start = System.nanoTime();
+		try
+		{
+			long size = file.length();
+			if (size < 3 * Integer.BYTES + 2 * Long.BYTES || size > Integer.MAX_VALUE)
+			{
+				log.debug("Ignoring warm start cache, bad size {}", size);
+				return null;
+			}
+			ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+			size = buffer.capacity();
+			ByteBuffer body = buffer.duplicate();
+			body.limit((int) size - Long.BYTES);
+			CRC32 crc = new CRC32();
+			crc.update(body);
+			if (crc.getValue() != buffer.getLong((int) size - Long.BYTES))
+			{
+				log.debug("Ignoring warm start cache, checksum mismatch");
+				return null;
+			}
+			if (buffer.getInt() != MAGIC || buffer.getLong() != getCacheVersion())
+			{
+				log.debug("Ignoring warm start cache from another plugin build");
+				return null;
+			}
+
+			long chatboxSourceHash = buffer.getLong();
+			int chatboxSpriteCount = buffer.getInt();
+			Pixels[] chatboxPixels = chatboxSpriteCount == 3 ? new Pixels[3] : null;
+			for (int i = 0; i < chatboxSpriteCount; i++)
+			{
+				Pixels pixels = readPixels(buffer);
+				if (chatboxPixels != null)
+				{
+					chatboxPixels[i] = pixels;
+				}
+			}
+			int borderTint = buffer.getInt();
+			Pixels borderPixels = buffer.getInt() == 1 ? readPixels(buffer) : null;
+			int planCount = buffer.getInt();
+			List<LayoutPlan> plans = new ArrayList<>(planCount);
+			for (int i = 0; i < planCount; i++)
+			{
+				plans.add(LayoutPlan.readFrom(buffer));
+			}
+			log.debug("Loaded warm start cache ({} bytes, {} plans) in {} us", size, planCount,
+				(System.nanoTime() - start) / 1000);
+			return new Contents(chatboxSourceHash, chatboxPixels, borderTint, borderPixels, plans);
+		}
+		catch (IOException | RuntimeException e)
+		{
+			log.debug("Unable to load warm start cache", e);
+			return null;
+		}
+	}
+
+	// Adopts what load() read, without overwriting anything computed on the client thread in the meantime
+	public void install(Contents contents)
+	{
+		if (chatboxPixels == null && contents.chatboxPixels != null)
+		{
+			chatboxSourceHash = contents.chatboxSourceHash;
+			chatboxPixels = contents.chatboxPixels;
+		}
+		if (borderPixels == null && contents.borderPixels != null)
+		{
+			borderTint = contents.borderTint;
+			borderPixels = contents.borderPixels;
+		}
+		for (LayoutPlan plan : contents.plans)
+		{
+			plans.putIfAbsent(plan.getKey(), plan);
+		}
+	}
+
+	// Returns the full/left/right chatbox pixels if they were sliced from a source with this hash
+	public Pixels[] getChatboxPixels(long sourceHash)
+	{
+		return chatboxPixels != null && chatboxSourceHash == sourceHash ? chatboxPixels : null;
+	}
+
+	public void putChatboxPixels(long sourceHash, Pixels full, Pixels left, Pixels right)
+	{
+		chatboxSourceHash = sourceHash;
+		chatboxPixels = new Pixels[]{full, left, right};
+		dirty = true;
+	}
+
+	public Pixels getBorderPixels(int tint)
+	{
+		return borderPixels != null && borderTint == tint ? borderPixels : null;
+	}
+
+	public void putBorderPixels(int tint, Pixels pixels)
+	{
+		borderTint = tint;
+		borderPixels = pixels;
+		dirty = true;
+	}
+
+	public LayoutPlan getPlan(long key)
+	{
+		return plans.get(key);
+	}
+
+	public void putPlan(LayoutPlan plan)
+	{
+		// Everything but the chat buttons is fixed by the key, so a plan that's already stored is only refreshed
+		if (plans.get(plan.getKey()) == null)
+		{
+			plans.put(plan.getKey(), plan.withoutChatButtons());
+			dirty = true;
+		}
+	}
+
+	// Returns a task that writes the current contents, or null if nothing changed since the last save.
+	// The task only reads immutable data, so it can run on the background worker.
+	public Runnable save()
+	{
+		if (!dirty)
+		{
+			return null;
+		}
+		dirty = false;
+		long sourceHash = chatboxSourceHash;
+		Pixels[] chatbox = chatboxPixels;
+		int tint = borderTint;
+		Pixels border = borderPixels;
+		List<LayoutPlan> planList = new ArrayList<>(plans.values());
+		return () -> write(sourceHash, chatbox, tint, border, planList);
+	}
+
+	private void write(long sourceHash, Pixels[] chatbox, int tint, Pixels border, List<LayoutPlan> planList)
+	{
+		int size = Integer.BYTES + 2 * Long.BYTES + Integer.BYTES;
+		if (chatbox != null)
+		{
+			for (Pixels pixels : chatbox)
+			{
+				size += pixelsSize(pixels);
+			}
+		}
+		size += 2 * Integer.BYTES + (border != null ? pixelsSize(border) : 0);
+		size += Integer.BYTES;
+		for (LayoutPlan plan : planList)
+		{
+			size += plan.getSerializedSize();
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate(size + Long.BYTES);
+		buffer.putInt(MAGIC);
+		buffer.putLong(getCacheVersion());
+		buffer.putLong(sourceHash);
+		if (chatbox != null)
+		{
+			buffer.putInt(chatbox.length);
+			for (Pixels pixels : chatbox)
+			{
+				writePixels(buffer, pixels);
+			}
+		}
+		else
+		{
+			buffer.putInt(0);
+		}
+		buffer.putInt(tint);
+		buffer.putInt(border != null ? 1 : 0);
+		if (border != null)
+		{
+			writePixels(buffer, border);
+		}
+		buffer.putInt(planList.size());
+		for (LayoutPlan plan : planList)
+		{
+			plan.writeTo(buffer);
+		}
+		CRC32 crc = new CRC32();
+		ByteBuffer body = buffer.duplicate();
+		body.flip();
+		crc.update(body);
+		buffer.putLong(crc.getValue());
+		buffer.flip();
+
+		Path temp = null;
+		try
+		{
+			Path directory = file.getParentFile().toPath();
+			Files.createDirectories(directory);
+			// A temp file of its own, so clients saving at the same time never write into each other's file
+			temp = Files.createTempFile(directory, file.getName(), ".tmp");
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE))
+			{
+				while (buffer.hasRemaining())
+				{
+					channel.write(buffer);
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			log.debug("Unable to write warm start cache", e);
+			deleteTemp(temp);
+			return;
+		}
+		try
+		{
+			Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			log.debug("Saved warm start cache ({} bytes, {} plans)", size + Long.BYTES, planList.size());
+		}
+		catch (IOException e)
+		{
+			log.warn("Unable to replace the warm start cache at {}", file, e);
+			deleteTemp(temp);
+		}
+	}
+
+	private static void deleteTemp(Path temp)
+	{
+		if (temp == null)
+		{
+			return;
+		}
+		try
+		{
+			Files.deleteIfExists(temp);
+		}
+		catch (IOException e)
+		{
+			log.debug("Unable to delete {}", temp, e);
+		}
+	}
+
+	// FNV-1a over VERSION_SOURCES. Only runs on the background worker, load() and the save() task.
+	private synchronized long getCacheVersion()
+	{
+		if (cacheVersion != 0)
+		{
+			return cacheVersion;
+		}
+		long hash = 0xcbf29ce484222325L;
+		byte[] chunk = new byte[8192];
+		for (String source : VERSION_SOURCES)
+		{
+			for (int i = 0; i < source.length(); i++)
+			{
+				hash = (hash ^ source.charAt(i)) * 0x100000001b3L;
+			}
+			try (InputStream in = WarmStartCache.class.getResourceAsStream(source))
+			{
+				if (in == null)
+				{
+					log.debug("Warm start cache version source {} not found", source);
+					continue;
+				}
+				int read;
+				while ((read = in.read(chunk)) != -1)
+				{
+					for (int i = 0; i < read; i++)
+					{
+						hash = (hash ^ (chunk[i] & 0xFF)) * 0x100000001b3L;
+					}
+				}
+			}
+			catch (IOException e)
+			{
+				log.debug("Unable to read warm start cache version source {}", source, e);
+			}
+		}
+		cacheVersion = hash == 0 ? 1 : hash;
+		return cacheVersion;
+	}
+
+	private static int pixelsSize(Pixels pixels)
+	{
+		return 2 * Integer.BYTES + pixels.pixels.length * Integer.BYTES;
+	}
+
+	private static void writePixels(ByteBuffer buffer, Pixels pixels)
+	{
+		buffer.putInt(pixels.width);
+		buffer.putInt(pixels.height);
+		buffer.asIntBuffer().put(pixels.pixels);
+		buffer.position(buffer.position() + pixels.pixels.length * Integer.BYTES);
+	}
+
+	private static Pixels readPixels(ByteBuffer buffer)
+	{
+		int width = buffer.getInt();
+		int height = buffer.getInt();
+		if (width < 0 || height < 0 || (long) width * height > MAX_SPRITE_PIXELS)
+		{
+			throw new IllegalStateException("Bad sprite size " + width + "x" + height);
+		}
+		int[] pixels = new int[width * height];
+		buffer.asIntBuffer().get(pixels);
+		buffer.position(buffer.position() + pixels.length * Integer.BYTES);
+		return new Pixels(width, height, pixels);
+	}
+}
@@ -0,0 +1,74 @@
+package com.lapask;
+
+import net.runelite.api.widgets.ComponentID;
+import net.runelite.api.widgets.InterfaceID;
+
+// Components the plugin looks up repeatedly, resolved through WidgetHandleRegistry.
+public enum WidgetHandle
+{
+	CANVAS(InterfaceID.RESIZABLE_VIEWPORT, 0),
+	WIDGET_BACKGROUND(InterfaceID.RESIZABLE_VIEWPORT, 14),
+	WIDGET_INTERFACE(InterfaceID.RESIZABLE_VIEWPORT, 16),
+	MINIMAP_SPRITE_CONTAINER(InterfaceID.RESIZABLE_VIEWPORT, 22),
+	// Compass widgets
+	COMPASS_29(InterfaceID.RESIZABLE_VIEWPORT, 29),
+	COMPASS_31(InterfaceID.RESIZABLE_VIEWPORT, 31),
+	MINIMAP_SPRITE(InterfaceID.RESIZABLE_VIEWPORT, 32),
+	FULL_CANVAS(InterfaceID.RESIZABLE_VIEWPORT, 34),
+	INV_BACKGROUND(InterfaceID.RESIZABLE_VIEWPORT, 38),
+	INV_LEFT_COLUMN(InterfaceID.RESIZABLE_VIEWPORT, 39),
+	INV_RIGHT_COLUMN(InterfaceID.RESIZABLE_VIEWPORT, 40),
+	INV_BOTTOM_BAR(InterfaceID.RESIZABLE_VIEWPORT, 41),
+	INV_BOTTOM_TABS(InterfaceID.RESIZABLE_VIEWPORT, 42),
+	INV_TOP_BAR(InterfaceID.RESIZABLE_VIEWPORT, 57),
+	INV_TOP_TABS(InterfaceID.RESIZABLE_VIEWPORT, 58),
+	RENDER_VIEWPORT(InterfaceID.RESIZABLE_VIEWPORT, 91),
+	CLICK_WINDOW(InterfaceID.RESIZABLE_VIEWPORT, 92),
+	INVENTORY(InterfaceID.RESIZABLE_VIEWPORT, 97),
+	OLD_SCHOOL_BOX(ComponentID.RESIZABLE_VIEWPORT_RESIZABLE_VIEWPORT_OLD_SCHOOL_BOX),
+	INVENTORY_PARENT(ComponentID.RESIZABLE_VIEWPORT_INVENTORY_PARENT),
+	INTERFACE_CONTAINER(ComponentID.RESIZABLE_VIEWPORT_INTERFACE_CONTAINER),
+	MINIMAP(ComponentID.RESIZABLE_VIEWPORT_MINIMAP),
+	MINIMAP_DRAW_AREA(ComponentID.RESIZABLE_VIEWPORT_MINIMAP_DRAW_AREA),
+	MINIMAP_ORB_HOLDER(ComponentID.RESIZABLE_VIEWPORT_MINIMAP_ORB_HOLDER),
+	MINIMAP_CONTAINER(ComponentID.MINIMAP_CONTAINER),
+	WORLDMAP_ORB(ComponentID.MINIMAP_WORLDMAP_ORB),
+	WIKI_BANNER(ComponentID.MINIMAP_WIKI_BANNER_PARENT),
+	STORE_ORB(160, 42),
+	ACTIVITY_ADVISER_ORB(160, 47),
+	RUN_ORB(ComponentID.MINIMAP_RUN_ORB),
+	SPEC_ORB(ComponentID.MINIMAP_SPEC_ORB),
+	XP_ORB(ComponentID.MINIMAP_XP_ORB),
+	HEALTH_ORB(ComponentID.MINIMAP_HEALTH_ORB),
+	PRAYER_ORB(ComponentID.MINIMAP_PRAYER_ORB),
+	CHATBOX_PARENT(ComponentID.RESIZABLE_VIEWPORT_CHATBOX_PARENT),
+	CHATBOX_FRAME(ComponentID.CHATBOX_FRAME),
+	CHATBOX_TRANSPARENT_BACKGROUND(ComponentID.CHATBOX_TRANSPARENT_BACKGROUND),
+	CHATBOX_BUTTONS(ComponentID.CHATBOX_BUTTONS),
+	CHATBOX_REPORT_BUTTON(162, 31),
+	DIALOG_OPTIONS(ComponentID.DIALOG_OPTION_OPTIONS);
+
+	static final WidgetHandle[] VALUES = values();
+
+	private final int componentId;
+
+	WidgetHandle(int groupId, int childId)
+	{
+		this(groupId << 16 | childId);
+	}
+
+	WidgetHandle(int componentId)
+	{
+		this.componentId = componentId;
+	}
+
+	public int getComponentId()
+	{
+		return componentId;
+	}
+
+	public int getGroupId()
+	{
+		return componentId >>> 16;
+	}
+}
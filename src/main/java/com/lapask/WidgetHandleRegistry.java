@@ -0,0 +1,77 @@
+package com.lapask;
+
+import net.runelite.api.Client;
+import net.runelite.api.widgets.Widget;
+
+// Resolves each WidgetHandle once and keeps the widget until its group is loaded or closed again, or the game client
+// layout changes. Widgets that aren't loaded yet aren't cached, so they're looked up again on the next call.
+// Counts hits and misses so the steady-state lookup rate can be checked.
+public class WidgetHandleRegistry
+{
+	private final Client client;
+	private final Widget[] widgets = new Widget[WidgetHandle.VALUES.length];
+	private int hits = 0;
+	private int misses = 0;
+
+	public WidgetHandleRegistry(Client client)
+	{
+		this.client = client;
+	}
+
+	public Widget get(WidgetHandle handle)
+	{
+		Widget widget = widgets[handle.ordinal()];
+		if (widget != null)
+		{
+			hits++;
+			return widget;
+		}
+		misses++;
+		widget = client.getWidget(handle.getComponentId());
+		widgets[handle.ordinal()] = widget;
+		return widget;
+	}
+
+	// Drops the handles owned by a group that was just loaded or closed
+	public void invalidateGroup(int groupId)
+	{
+		for (WidgetHandle handle : WidgetHandle.VALUES)
+		{
+			if (handle.getGroupId() == groupId)
+			{
+				widgets[handle.ordinal()] = null;
+			}
+		}
+	}
+
+	public void invalidateAll()
+	{
+		for (int i = 0; i < widgets.length; i++)
+		{
+			widgets[i] = null;
+		}
+	}
+
+	public int getHits()
+	{
+		return hits;
+	}
+
+	public int getMisses()
+	{
+		return misses;
+	}
+
+	// Percentage of lookups served from the cache
+	public double getHitRate()
+	{
+		int lookups = hits + misses;
+		return lookups == 0 ? 0 : 100.0 * hits / lookups;
+	}
+
+	public void resetCounters()
+	{
+		hits = 0;
+		misses = 0;
+	}
+}
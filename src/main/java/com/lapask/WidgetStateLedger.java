@@ -0,0 +1,371 @@
+package com.lapask;
+
+import java.util.Arrays;
+import net.runelite.api.Client;
+import net.runelite.api.widgets.Widget;
+
+// Saved vanilla state of every widget the plugin modifies, keyed by widget id.
+// Records are packed into one int array (RECORD_SIZE ints per widget) and looked up through an open addressing table,
+// so saving and resetting never boxes ids or allocates per widget.
+// Each record is tagged with the owner it was saved for (a LayoutFeature bit), so a single feature can be reverted
+// with restore(client, ownerMask) while the rest of the layout stays applied.
+public class WidgetStateLedger
+{
+	// Field bits, used both for the record's changed-field mask and to pick which fields restore() writes back
+	public static final int SPRITE_ID = 1;
+	public static final int ORIGINAL_X = 1 << 1;
+	public static final int ORIGINAL_Y = 1 << 2;
+	public static final int ORIGINAL_WIDTH = 1 << 3;
+	public static final int ORIGINAL_HEIGHT = 1 << 4;
+	public static final int X_POSITION_MODE = 1 << 5;
+	public static final int Y_POSITION_MODE = 1 << 6;
+	public static final int WIDTH_MODE = 1 << 7;
+	public static final int HEIGHT_MODE = 1 << 8;
+	public static final int HIDDEN = 1 << 9;
+
+	// Owner mask that matches every record, including the ones saved without an owner
+	public static final int ALL_OWNERS = -1;
+
+	// Record layout
+	private static final int R_SPRITE_ID = 0;
+	private static final int R_X = 1;
+	private static final int R_Y = 2;
+	private static final int R_WIDTH = 3;
+	private static final int R_HEIGHT = 4;
+	private static final int R_X_MODE = 5;
+	private static final int R_Y_MODE = 6;
+	private static final int R_WIDTH_MODE = 7;
+	private static final int R_HEIGHT_MODE = 8;
+	private static final int R_FLAGS = 9;
+	private static final int RECORD_SIZE = 10;
+
+	// R_FLAGS bits
+	private static final int FLAG_HIDDEN = 1;
+	private static final int FLAG_SELF_HIDDEN = 1 << 1;
+	private static final int FLAG_RESET_LAST = 1 << 2;
+
+	private int[] ids = new int[64];
+	private int[] records = new int[64 * RECORD_SIZE];
+	private int[] changedMasks = new int[64];
+	private int[] owners = new int[64];
+	// Open addressing table of (slot + 1), 0 marks an empty bucket
+	private int[] table = new int[128];
+	private int size = 0;
+	private int peakSize = 0;
+
+	public int size()
+	{
+		return size;
+	}
+
+	public int getPeakSize()
+	{
+		return peakSize;
+	}
+
+	public boolean contains(int widgetId)
+	{
+		return slotOf(widgetId) != -1;
+	}
+
+	// Saves the widget's current state unless it has already been saved, so repeated calls never overwrite the
+	// vanilla values. The record keeps the owner of the first save. Returns true if a new record was created.
+	public boolean save(Widget widget, boolean resetLast, int owner)
+	{
+		int widgetId = widget.getId();
+		if (slotOf(widgetId) != -1)
+		{
+			return false;
+		}
+		if (size == ids.length)
+		{
+			grow();
+		}
+
+		int slot = size++;
+		ids[slot] = widgetId;
+		changedMasks[slot] = 0;
+		owners[slot] = owner;
+		int base = slot * RECORD_SIZE;
+		records[base + R_SPRITE_ID] = widget.getSpriteId();
+		records[base + R_X] = widget.getOriginalX();
+		records[base + R_Y] = widget.getOriginalY();
+		records[base + R_WIDTH] = widget.getOriginalWidth();
+		records[base + R_HEIGHT] = widget.getOriginalHeight();
+		records[base + R_X_MODE] = widget.getXPositionMode();
+		records[base + R_Y_MODE] = widget.getYPositionMode();
+		records[base + R_WIDTH_MODE] = widget.getWidthMode();
+		records[base + R_HEIGHT_MODE] = widget.getHeightMode();
+		records[base + R_FLAGS] = (widget.isHidden() ? FLAG_HIDDEN : 0)
+			| (widget.isSelfHidden() ? FLAG_SELF_HIDDEN : 0)
+			| (resetLast ? FLAG_RESET_LAST : 0);
+		insert(widgetId, slot);
+		peakSize = Math.max(peakSize, size);
+		return true;
+	}
+
+	public int getOriginalX(int widgetId)
+	{
+		return field(widgetId, R_X);
+	}
+
+	public int getOriginalWidth(int widgetId)
+	{
+		return field(widgetId, R_WIDTH);
+	}
+
+	// Restores every saved widget in a single pass over the records: regular widgets are restored and revalidated
+	// first, then the resetLast widgets (parents that need to be revalidated after their children).
+	// Only the fields that differ from the saved state are written. Returns the number of fields written.
+	public int restore(Client client)
+	{
+		return restore(client, ALL_OWNERS);
+	}
+
+	// Restores only the records whose owner is in the mask and forgets them, so the next save() of those widgets
+	// records their state again. Returns the number of fields written.
+	public int restore(Client client, int ownerMask)
+	{
+		int writes = restoreRecords(client, false, ownerMask);
+		revalidateRecords(client, false, ownerMask);
+		writes += restoreRecords(client, true, ownerMask);
+		revalidateRecords(client, true, ownerMask);
+		if (ownerMask != ALL_OWNERS)
+		{
+			remove(ownerMask);
+		}
+		return writes;
+	}
+
+	public void clear()
+	{
+		Arrays.fill(table, 0);
+		size = 0;
+	}
+
+	private int restoreRecords(Client client, boolean resetLast, int ownerMask)
+	{
+		int writes = 0;
+		for (int slot = 0; slot < size; slot++)
+		{
+			int base = slot * RECORD_SIZE;
+			int flags = records[base + R_FLAGS];
+			if (((flags & FLAG_RESET_LAST) != 0) != resetLast || !isOwned(slot, ownerMask))
+			{
+				continue;
+			}
+			Widget widget = client.getWidget(ids[slot]);
+			if (widget == null)
+			{
+				continue;
+			}
+			// resetLast widgets have historically been restored from the hidden flag only
+			boolean hidden = resetLast
+				? (flags & FLAG_HIDDEN) != 0
+				: (flags & (FLAG_HIDDEN | FLAG_SELF_HIDDEN)) != 0;
+
+			int changed = changedFields(widget, base, hidden);
+			changedMasks[slot] = changed;
+			if (changed == 0)
+			{
+				continue;
+			}
+			if ((changed & SPRITE_ID) != 0)
+			{
+				widget.setSpriteId(records[base + R_SPRITE_ID]);
+			}
+			if ((changed & ORIGINAL_X) != 0)
+			{
+				widget.setOriginalX(records[base + R_X]);
+			}
+			if ((changed & ORIGINAL_Y) != 0)
+			{
+				widget.setOriginalY(records[base + R_Y]);
+			}
+			if ((changed & ORIGINAL_WIDTH) != 0)
+			{
+				widget.setOriginalWidth(records[base + R_WIDTH]);
+			}
+			if ((changed & ORIGINAL_HEIGHT) != 0)
+			{
+				widget.setOriginalHeight(records[base + R_HEIGHT]);
+			}
+			if ((changed & X_POSITION_MODE) != 0)
+			{
+				widget.setXPositionMode(records[base + R_X_MODE]);
+			}
+			if ((changed & Y_POSITION_MODE) != 0)
+			{
+				widget.setYPositionMode(records[base + R_Y_MODE]);
+			}
+			if ((changed & WIDTH_MODE) != 0)
+			{
+				widget.setWidthMode(records[base + R_WIDTH_MODE]);
+			}
+			if ((changed & HEIGHT_MODE) != 0)
+			{
+				widget.setHeightMode(records[base + R_HEIGHT_MODE]);
+			}
+			if ((changed & HIDDEN) != 0)
+			{
+				widget.setHidden(hidden);
+			}
+			writes += Integer.bitCount(changed);
+		}
+		return writes;
+	}
+
+	private void revalidateRecords(Client client, boolean resetLast, int ownerMask)
+	{
+		for (int slot = 0; slot < size; slot++)
+		{
+			int flags = records[slot * RECORD_SIZE + R_FLAGS];
+			if (((flags & FLAG_RESET_LAST) != 0) != resetLast || !isOwned(slot, ownerMask) || changedMasks[slot] == 0)
+			{
+				continue;
+			}
+			Widget widget = client.getWidget(ids[slot]);
+			if (widget != null)
+			{
+				widget.revalidateScroll();
+			}
+		}
+	}
+
+	private boolean isOwned(int slot, int ownerMask)
+	{
+		return ownerMask == ALL_OWNERS || (owners[slot] & ownerMask) != 0;
+	}
+
+	// Drops the records owned by the mask, compacting the rest and rebuilding the lookup table
+	private void remove(int ownerMask)
+	{
+		int kept = 0;
+		for (int slot = 0; slot < size; slot++)
+		{
+			if (isOwned(slot, ownerMask))
+			{
+				continue;
+			}
+			if (kept != slot)
+			{
+				ids[kept] = ids[slot];
+				owners[kept] = owners[slot];
+				changedMasks[kept] = changedMasks[slot];
+				System.arraycopy(records, slot * RECORD_SIZE, records, kept * RECORD_SIZE, RECORD_SIZE);
+			}
+			kept++;
+		}
+		size = kept;
+		Arrays.fill(table, 0);
+		for (int slot = 0; slot < size; slot++)
+		{
+			insert(ids[slot], slot);
+		}
+	}
+
+	// Builds the bitmask of the fields the plugin changed since the widget was saved
+	private int changedFields(Widget widget, int base, boolean hidden)
+	{
+		int changed = 0;
+		if (widget.getSpriteId() != records[base + R_SPRITE_ID])
+		{
+			changed |= SPRITE_ID;
+		}
+		if (widget.getOriginalX() != records[base + R_X])
+		{
+			changed |= ORIGINAL_X;
+		}
+		if (widget.getOriginalY() != records[base + R_Y])
+		{
+			changed |= ORIGINAL_Y;
+		}
+		if (widget.getOriginalWidth() != records[base + R_WIDTH])
+		{
+			changed |= ORIGINAL_WIDTH;
+		}
+		if (widget.getOriginalHeight() != records[base + R_HEIGHT])
+		{
+			changed |= ORIGINAL_HEIGHT;
+		}
+		if (widget.getXPositionMode() != records[base + R_X_MODE])
+		{
+			changed |= X_POSITION_MODE;
+		}
+		if (widget.getYPositionMode() != records[base + R_Y_MODE])
+		{
+			changed |= Y_POSITION_MODE;
+		}
+		if (widget.getWidthMode() != records[base + R_WIDTH_MODE])
+		{
+			changed |= WIDTH_MODE;
+		}
+		if (widget.getHeightMode() != records[base + R_HEIGHT_MODE])
+		{
+			changed |= HEIGHT_MODE;
+		}
+		if (widget.isSelfHidden() != hidden)
+		{
+			changed |= HIDDEN;
+		}
+		return changed;
+	}
+
+	private int field(int widgetId, int offset)
+	{
+		int slot = slotOf(widgetId);
+		if (slot == -1)
+		{
+			throw new IllegalStateException("Widget " + widgetId + " has no saved state");
+		}
+		return records[slot * RECORD_SIZE + offset];
+	}
+
+	private int slotOf(int widgetId)
+	{
+		int mask = table.length - 1;
+		for (int bucket = hash(widgetId) & mask; ; bucket = (bucket + 1) & mask)
+		{
+			int entry = table[bucket];
+			if (entry == 0)
+			{
+				return -1;
+			}
+			if (ids[entry - 1] == widgetId)
+			{
+				return entry - 1;
+			}
+		}
+	}
+
+	private void insert(int widgetId, int slot)
+	{
+		int mask = table.length - 1;
+		int bucket = hash(widgetId) & mask;
+		while (table[bucket] != 0)
+		{
+			bucket = (bucket + 1) & mask;
+		}
+		table[bucket] = slot + 1;
+	}
+
+	private void grow()
+	{
+		int capacity = ids.length * 2;
+		ids = Arrays.copyOf(ids, capacity);
+		records = Arrays.copyOf(records, capacity * RECORD_SIZE);
+		changedMasks = Arrays.copyOf(changedMasks, capacity);
+		owners = Arrays.copyOf(owners, capacity);
+		table = new int[capacity * 2];
+		for (int slot = 0; slot < size; slot++)
+		{
+			insert(ids[slot], slot);
+		}
+	}
+
+	private static int hash(int widgetId)
+	{
+		int h = widgetId * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
@@ -0,0 +1,134 @@
+package com.lapask;
+
+import net.runelite.api.widgets.Widget;
+
+// Widget setters that skip the write when the widget already holds the target value.
+// Every setter returns true if it actually wrote, so callers only revalidate widgets that changed.
+// Applied/elided writes are counted per call site to confirm steady-state frames don't write anything.
+public class WidgetWriter
+{
+	public enum Site
+	{
+		CLICK_WINDOW,
+		CHATBOX_CHANGED,
+		INTERFACE_DIMENSIONS,
+		WIDGET_BACKGROUND,
+		CHAT_BUTTONS,
+		PROVISIONAL_RESIZE
+	}
+
+	private final int[] applied = new int[Site.values().length];
+	private final int[] elided = new int[Site.values().length];
+	private int frameApplied = 0;
+
+	public boolean setOriginalX(Site site, Widget widget, int value)
+	{
+		if (widget.getOriginalX() == value)
+		{
+			return elide(site);
+		}
+		widget.setOriginalX(value);
+		return apply(site);
+	}
+
+	public boolean setOriginalY(Site site, Widget widget, int value)
+	{
+		if (widget.getOriginalY() == value)
+		{
+			return elide(site);
+		}
+		widget.setOriginalY(value);
+		return apply(site);
+	}
+
+	public boolean setOriginalWidth(Site site, Widget widget, int value)
+	{
+		if (widget.getOriginalWidth() == value)
+		{
+			return elide(site);
+		}
+		widget.setOriginalWidth(value);
+		return apply(site);
+	}
+
+	public boolean setOriginalHeight(Site site, Widget widget, int value)
+	{
+		if (widget.getOriginalHeight() == value)
+		{
+			return elide(site);
+		}
+		widget.setOriginalHeight(value);
+		return apply(site);
+	}
+
+	public boolean setXPositionMode(Site site, Widget widget, int value)
+	{
+		if (widget.getXPositionMode() == value)
+		{
+			return elide(site);
+		}
+		widget.setXPositionMode(value);
+		return apply(site);
+	}
+
+	public boolean setYPositionMode(Site site, Widget widget, int value)
+	{
+		if (widget.getYPositionMode() == value)
+		{
+			return elide(site);
+		}
+		widget.setYPositionMode(value);
+		return apply(site);
+	}
+
+	public boolean setWidthMode(Site site, Widget widget, int value)
+	{
+		if (widget.getWidthMode() == value)
+		{
+			return elide(site);
+		}
+		widget.setWidthMode(value);
+		return apply(site);
+	}
+
+	// Called at the start of every frame, returns the writes applied during the previous frame
+	public int startFrame()
+	{
+		int previous = frameApplied;
+		frameApplied = 0;
+		return previous;
+	}
+
+	public int getApplied(Site site)
+	{
+		return applied[site.ordinal()];
+	}
+
+	public int getElided(Site site)
+	{
+		return elided[site.ordinal()];
+	}
+
+	public void resetCounters()
+	{
+		for (int i = 0; i < applied.length; i++)
+		{
+			applied[i] = 0;
+			elided[i] = 0;
+		}
+		frameApplied = 0;
+	}
+
+	private boolean apply(Site site)
+	{
+		applied[site.ordinal()]++;
+		frameApplied++;
+		return true;
+	}
+
+	private boolean elide(Site site)
+	{
+		elided[site.ordinal()]++;
+		return false;
+	}
+}